@@ -0,0 +1,53 @@
+package ru.spbstu.shortestmazepath.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.spbstu.shortestmazepath.model.DensityGenerator;
+import ru.spbstu.shortestmazepath.model.Generator;
+import ru.spbstu.shortestmazepath.model.Maze;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenerationBenchmark {
+
+    @Param({"64", "1024"})
+    public int size;
+
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        random = new Random(Mazes.SEED);
+    }
+
+    @Benchmark
+    public Maze random() {
+        return Maze.random(size, size, random);
+    }
+
+    @Benchmark
+    public Maze density() {
+        return new DensityGenerator(0.5, false).generate(size, size, Mazes.SEED);
+    }
+
+    @Benchmark
+    public Maze backtracker() {
+        return Generator.BACKTRACKER.generate(size, size, Mazes.SEED);
+    }
+
+    @Benchmark
+    public Maze kruskal() {
+        return Generator.KRUSKAL.generate(size, size, Mazes.SEED);
+    }
+
+    @Benchmark
+    public Maze wilson() {
+        return Generator.WILSON.generate(size, size, Mazes.SEED);
+    }
+}
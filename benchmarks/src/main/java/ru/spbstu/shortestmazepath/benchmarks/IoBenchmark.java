@@ -0,0 +1,55 @@
+package ru.spbstu.shortestmazepath.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.spbstu.shortestmazepath.model.Maze;
+import ru.spbstu.shortestmazepath.model.MazeManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IoBenchmark {
+
+    @Param({"256", "2048"})
+    public int size;
+
+    @Param({"0.3"})
+    public double density;
+
+    @Param({"TEXT", "BINARY", "COMPRESSED"})
+    public MazeManager.Format format;
+
+    private Maze maze;
+    private File loadFile;
+    private File saveFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        maze = Mazes.random(size, density);
+        loadFile = File.createTempFile("benchmark", format.getExtension());
+        saveFile = File.createTempFile("benchmark", format.getExtension());
+        MazeManager.save(maze, loadFile, format);
+    }
+
+    @TearDown
+    public void tearDown() {
+        loadFile.delete();
+        saveFile.delete();
+    }
+
+    @Benchmark
+    public Maze load() throws IOException {
+        return MazeManager.load(loadFile);
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        MazeManager.save(maze, saveFile, format);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.spbstu.shortestmazepath.benchmarks;
+
+import ru.spbstu.shortestmazepath.model.Cell;
+import ru.spbstu.shortestmazepath.model.Maze;
+
+import java.util.Random;
+
+/**
+ * Builds reproducible benchmark inputs.
+ */
+class Mazes {
+
+    static final long SEED = 42;
+
+    /**
+     * Creates a square maze with walls placed with the specified probability and the start and end points
+     * in the opposite corners.
+     */
+    static Maze random(int size, double density) {
+        Random random = new Random(SEED);
+        Cell[][] cells = new Cell[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                cells[i][j] = new Cell(i, j, random.nextDouble() < density ? Cell.Type.WALL : Cell.Type.PATH);
+            }
+        }
+        Cell start = new Cell(0, 0, Cell.Type.START);
+        Cell end = new Cell(size - 1, size - 1, Cell.Type.END);
+        cells[0][0] = start;
+        cells[size - 1][size - 1] = end;
+        return new Maze(size, size, start, end, cells);
+    }
+}
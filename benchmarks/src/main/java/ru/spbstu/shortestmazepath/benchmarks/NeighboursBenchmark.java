@@ -0,0 +1,43 @@
+package ru.spbstu.shortestmazepath.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.spbstu.shortestmazepath.model.Cell;
+import ru.spbstu.shortestmazepath.model.Maze;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NeighboursBenchmark {
+
+    private static final int CELLS = 1024;
+
+    @Param({"64", "1024"})
+    public int size;
+
+    @Param({"0.1", "0.3"})
+    public double density;
+
+    private Maze maze;
+    private Cell[] cells;
+
+    @Setup
+    public void setUp() {
+        maze = Mazes.random(size, density);
+        cells = new Cell[CELLS];
+        for (int i = 0; i < CELLS; i++)
+            cells[i] = maze.getCell((i * 31) % size, (i * 17) % size);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void getNeighbours(Blackhole blackhole) {
+        for (Cell cell : cells)
+            blackhole.consume(maze.getNeighbours(cell));
+    }
+}
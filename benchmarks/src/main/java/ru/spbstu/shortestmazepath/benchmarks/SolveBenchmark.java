@@ -0,0 +1,46 @@
+package ru.spbstu.shortestmazepath.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.spbstu.shortestmazepath.model.Algorithm;
+import ru.spbstu.shortestmazepath.model.Cell;
+import ru.spbstu.shortestmazepath.model.Maze;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SolveBenchmark {
+
+    @Param({"64", "256", "1024"})
+    public int size;
+
+    @Param({"0.1", "0.3"})
+    public double density;
+
+    @Param({"AUTO", "BFS", "A_STAR", "BUCKET_A_STAR", "JUMP_POINT", "BIDIRECTIONAL", "TERRAIN", "HIERARCHICAL"})
+    public Algorithm algorithm;
+
+    private Maze maze;
+
+    @Setup
+    public void setUp() {
+        maze = Mazes.random(size, density);
+    }
+
+    /**
+     * Unsolvable inputs are measured as well: they are the slowest case for every engine.
+     */
+    @Benchmark
+    public List<Cell> solve() {
+        try {
+            return maze.solve(algorithm);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package ru.spbstu.shortestmazepath;
 
+import ru.spbstu.shortestmazepath.cli.BatchSolver;
+
+import java.util.Arrays;
+
 /**
- * A helper class to build proper .jar files with Maven
+ * A helper class to build proper .jar files with Maven.
+ * Starts the headless batch solver if the first argument is "--batch", the GUI otherwise.
  */
 public class Main {
     public static void main(String[] args) {
-        MazeApp.main(args);
+        if (args.length > 0 && args[0].equals("--batch"))
+            BatchSolver.main(Arrays.copyOfRange(args, 1, args.length));
+        else
+            MazeApp.main(args);
     }
 }
@@ -0,0 +1,275 @@
+package ru.spbstu.shortestmazepath.cli;
+
+import ru.spbstu.shortestmazepath.model.*;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Headless entry point loading and solving maze files in parallel.
+ * A result line is printed for every file as soon as it is solved, so the lines come in no particular order.
+ */
+public class BatchSolver {
+
+    private static final String USAGE = "Usage: --batch [--format csv|json] [--threads N] [--algorithm NAME] [--metrics] <directory|glob|file>...";
+    private static final int FILES_PER_TASK = 8;
+
+    private enum OutputFormat {
+        CSV, JSON
+    }
+
+    private OutputFormat format = OutputFormat.CSV;
+    private Algorithm algorithm = Algorithm.AUTO;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean metrics = false;
+    private final List<String> sources = new ArrayList<>();
+
+    private PrintStream out;
+    private final AtomicInteger failures = new AtomicInteger();
+
+    public static void main(String[] args) {
+        System.exit(new BatchSolver().run(args, System.out, System.err));
+    }
+
+    /**
+     * Solves all the maze files specified by the arguments.
+     *
+     * @return the process exit code: 0 if every file was processed, 1 if some files could not be loaded,
+     * 2 if the arguments are wrong.
+     */
+    public int run(String[] args, PrintStream out, PrintStream err) {
+        this.out = out;
+        List<Path> files;
+        try {
+            parseArguments(args);
+            files = new ArrayList<>();
+            for (String source : sources)
+                files.addAll(findFiles(source));
+        } catch (IllegalArgumentException | IOException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+
+        if (format == OutputFormat.CSV)
+            out.println("file,status,width,height,path_length,expanded_nodes,generated_nodes,peak_open_set,load_ns,solve_ns,message");
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new SolveTask(files, 0, files.size()));
+        } finally {
+            pool.shutdown();
+        }
+        out.flush();
+        if (metrics)
+            err.println(MetricsRegistry.getDefault().report());
+        return failures.get() == 0 ? 0 : 1;
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--format":
+                    format = OutputFormat.valueOf(value(args, ++i).toUpperCase(Locale.ROOT));
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value(args, ++i));
+                    if (threads < 1)
+                        throw new IllegalArgumentException("Thread count must be positive");
+                    break;
+                case "--algorithm":
+                    algorithm = Algorithm.valueOf(value(args, ++i).toUpperCase(Locale.ROOT));
+                    break;
+                case "--metrics":
+                    metrics = true;
+                    break;
+                default:
+                    sources.add(args[i]);
+            }
+        }
+        if (sources.isEmpty())
+            throw new IllegalArgumentException("No maze files specified");
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length)
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        return args[i];
+    }
+
+    /**
+     * Lists the maze files of a directory (recursively), matching a glob or a single file.
+     */
+    private static List<Path> findFiles(String source) throws IOException {
+        Path path = Paths.get(source);
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> walk = Files.walk(path)) {
+                return walk.filter(BatchSolver::isMazeFile).sorted().collect(Collectors.toList());
+            }
+        }
+        if (Files.isRegularFile(path))
+            return List.of(path);
+        if (source.chars().noneMatch(c -> c == '*' || c == '?' || c == '[' || c == '{'))
+            throw new IOException("No such file or directory: " + source);
+
+        // Walk from the deepest directory without wildcards and match the rest of the pattern
+        Path base = Paths.get("");
+        for (Path part : Paths.get(source)) {
+            if (part.toString().chars().anyMatch(c -> c == '*' || c == '?' || c == '[' || c == '{'))
+                break;
+            base = base.resolve(part);
+        }
+        if (path.isAbsolute())
+            base = path.getRoot().resolve(base);
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + source);
+        try (Stream<Path> walk = Files.walk(base.toString().isEmpty() ? Paths.get(".") : base)) {
+            return walk.filter(Files::isRegularFile)
+                    .filter(p -> matcher.matches(p) || matcher.matches(p.normalize()))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isMazeFile(Path path) {
+        if (!Files.isRegularFile(path))
+            return false;
+        final String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (MazeManager.Format format : MazeManager.Format.values()) {
+            if (name.endsWith(format.getExtension()))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Loads and solves a single file, printing its row. Any failure is reported for this file only,
+     * so one broken file never stops the batch.
+     */
+    private void process(Path file) {
+        Maze maze;
+        final long loadStart = System.nanoTime();
+        try {
+            maze = MazeManager.load(file.toFile());
+        } catch (IOException | IllegalArgumentException e) {
+            failed(file, null, null, System.nanoTime() - loadStart, 0, e.getMessage());
+            return;
+        } catch (RuntimeException | OutOfMemoryError e) {
+            failed(file, null, null, System.nanoTime() - loadStart, 0, e.toString());
+            return;
+        }
+        final long loadTime = System.nanoTime() - loadStart;
+
+        SearchMonitor monitor = new SearchMonitor();
+        final long solveStart = System.nanoTime();
+        try {
+            List<Cell> path = maze.solve(algorithm, monitor);
+            print(file, "solved", maze, path.size(), monitor, loadTime, System.nanoTime() - solveStart, "");
+        } catch (IllegalArgumentException e) {
+            print(file, "no_path", maze, 0, monitor, loadTime, System.nanoTime() - solveStart, e.getMessage());
+        } catch (RuntimeException | OutOfMemoryError e) {
+            failed(file, maze, monitor, loadTime, System.nanoTime() - solveStart, e.toString());
+        }
+    }
+
+    private void failed(Path file, Maze maze, SearchMonitor monitor, long loadTime, long solveTime, String message) {
+        failures.incrementAndGet();
+        print(file, "error", maze, 0, monitor, loadTime, solveTime, message);
+    }
+
+    private void print(Path file, String status, Maze maze, int pathLength, SearchMonitor monitor, long loadTime,
+                       long solveTime, String message) {
+        final int width = (maze != null) ? maze.getWidth() : 0;
+        final int height = (maze != null) ? maze.getHeight() : 0;
+        final long expanded = (monitor != null) ? monitor.getExpandedNodes() : 0;
+        final long generated = (monitor != null) ? monitor.getGeneratedNodes() : 0;
+        final int peakOpenSet = (monitor != null) ? monitor.getPeakOpenSetSize() : 0;
+        final String line;
+        if (format == OutputFormat.CSV) {
+            line = csv(file.toString()) + ',' + status + ',' + width + ',' + height + ',' + pathLength + ','
+                    + expanded + ',' + generated + ',' + peakOpenSet + ',' + loadTime + ',' + solveTime + ',' + csv(message);
+        } else {
+            line = "{\"file\":" + json(file.toString()) + ",\"status\":\"" + status + "\",\"width\":" + width
+                    + ",\"height\":" + height + ",\"pathLength\":" + pathLength + ",\"expandedNodes\":" + expanded
+                    + ",\"generatedNodes\":" + generated + ",\"peakOpenSet\":" + peakOpenSet + ",\"loadNs\":" + loadTime
+                    + ",\"solveNs\":" + solveTime + ",\"message\":" + json(message) + '}';
+        }
+        synchronized (out) {
+            out.println(line);
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null)
+            return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(String value) {
+        if (value == null)
+            return "null";
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                        sb.append(String.format("\\u%04x", (int) c));
+                    else
+                        sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Splits the file list in halves until the parts are small enough to be processed by a single worker.
+     */
+    private class SolveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> files;
+        private final int from;
+        private final int to;
+
+        private SolveTask(List<Path> files, int from, int to) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= FILES_PER_TASK) {
+                for (int i = from; i < to; i++)
+                    process(files.get(i));
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new SolveTask(files, from, middle), new SolveTask(files, middle, to));
+        }
+    }
+}
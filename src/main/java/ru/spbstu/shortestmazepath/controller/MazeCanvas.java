@@ -0,0 +1,448 @@
+package ru.spbstu.shortestmazepath.controller;
+
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import ru.spbstu.shortestmazepath.model.Cell;
+import ru.spbstu.shortestmazepath.model.Maze;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Draws a maze on a single canvas, painting only the cells inside the viewport.
+ * The maze is zoomed with the mouse wheel and panned by dragging.
+ * <p>
+ * The canvas reads the cells straight from the {@link Maze} it shows. Whoever edits the maze reports the changed
+ * cells with {@link #cellChanged(int, int)}, and only those cells are repainted.
+ * <p>
+ * Zoomed in, every cell is drawn with its image. Zoomed out, the maze is drawn with tiles of
+ * {@value #TILE_CELLS}x{@value #TILE_CELLS} cells in flat colours, which are rendered once and then cached.
+ */
+public class MazeCanvas extends Pane {
+
+    /**
+     * The cell size is 2^zoom pixels.
+     */
+    private static final int MIN_ZOOM = -4;
+    private static final int MAX_ZOOM = 6;
+    /**
+     * Starting from this zoom, the cells are drawn with images instead of tiles.
+     */
+    private static final int IMAGE_ZOOM = 4;
+    private static final int TILE_CELLS = 64;
+    private static final long TILE_CACHE_PIXELS = 1 << 24;
+    /**
+     * Start and end points are never drawn smaller than this, so they stay visible in large mazes.
+     */
+    private static final double MIN_MARKER_SIZE = 4;
+    private static final Color BACKGROUND = Color.web("#f4f4f4");
+    private static final Color SOLUTION_SHADE = BACKGROUND.deriveColor(0, 1, 1, 0.5);
+
+    private static final Cell.Type[] TYPES = Cell.Type.values();
+    private static final Image[] IMAGES = new Image[TYPES.length];
+    private static final int[] COLORS = new int[TYPES.length];
+
+    static {
+        for (Cell.Type type : TYPES) {
+            Image image = new Image(MazeCanvas.class.getResourceAsStream(type.name().toLowerCase() + ".png"));
+            IMAGES[type.ordinal()] = image;
+            COLORS[type.ordinal()] = averageColor(image);
+        }
+    }
+
+    private final Canvas canvas = new Canvas();
+    private Maze maze = null;
+    private int rows = 0;
+    private int columns = 0;
+    /**
+     * Indices of the highlighted path cells.
+     */
+    private final BitSet solution = new BitSet();
+    /**
+     * Indices of the cells changed since the last repaint.
+     */
+    private final Set<Integer> dirtyCells = new HashSet<>();
+    private boolean repaintPending = false;
+    /**
+     * Positions of the start and end markers on the canvas, as they are drawn.
+     */
+    private int drawnStart = -1;
+    private int drawnEnd = -1;
+
+    private int zoom = MAX_ZOOM;
+    private double offsetX = 0;
+    private double offsetY = 0;
+    private double dragX;
+    private double dragY;
+    private boolean editable = true;
+    private BiConsumer<Integer, Integer> onCellClicked = (x, y) -> {
+    };
+
+    private final Map<Long, WritableImage> tiles = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedPixels = 0;
+
+    public MazeCanvas() {
+        getChildren().add(canvas);
+        Rectangle clip = new Rectangle();
+        clip.widthProperty().bind(widthProperty());
+        clip.heightProperty().bind(heightProperty());
+        setClip(clip);
+
+        setOnScroll(event -> {
+            if (event.getDeltaY() != 0)
+                zoomAt(event.getX(), event.getY(), zoom + (event.getDeltaY() > 0 ? 1 : -1));
+        });
+        setOnMousePressed(event -> {
+            dragX = event.getX();
+            dragY = event.getY();
+        });
+        setOnMouseDragged(event -> {
+            offsetX += event.getX() - dragX;
+            offsetY += event.getY() - dragY;
+            dragX = event.getX();
+            dragY = event.getY();
+            draw();
+        });
+        setOnMouseClicked(event -> {
+            if (!editable || !event.isStillSincePress() || event.getButton() != MouseButton.PRIMARY)
+                return;
+            final int x = (int) Math.floor((event.getX() - offsetX) / cellSize());
+            final int y = (int) Math.floor((event.getY() - offsetY) / cellSize());
+            if (x >= 0 && x < columns && y >= 0 && y < rows)
+                onCellClicked.accept(x, y);
+        });
+    }
+
+    /**
+     * Sets the action performed when a cell is clicked, receiving the x and y coordinates of the cell.
+     */
+    public void setOnCellClicked(BiConsumer<Integer, Integer> onCellClicked) {
+        this.onCellClicked = onCellClicked;
+    }
+
+    /**
+     * Allows or forbids clicking the cells. Zooming and panning are always allowed.
+     */
+    public void setEditable(boolean editable) {
+        this.editable = editable;
+    }
+
+    public Maze getMaze() {
+        return maze;
+    }
+
+    /**
+     * Shows the specified maze, replacing the current one and fitting it into the viewport.
+     */
+    public void setMaze(Maze maze) {
+        this.maze = maze;
+        rows = maze.getHeight();
+        columns = maze.getWidth();
+        solution.clear();
+        dirtyCells.clear();
+        clearTiles();
+        fit();
+    }
+
+    /**
+     * Schedules a repaint of the cell after it has been changed in the maze.
+     * Any number of cells may be changed before the canvas is actually repainted.
+     */
+    public void cellChanged(int x, int y) {
+        updateTile(x, y);
+        dirtyCells.add(y * columns + x);
+        if (!repaintPending) {
+            repaintPending = true;
+            Platform.runLater(this::repaintDirtyCells);
+        }
+    }
+
+    /**
+     * Highlights the cells of the path, or removes the highlighting if the path is null.
+     */
+    public void setSolution(List<Cell> solution) {
+        this.solution.clear();
+        if (solution != null) {
+            for (Cell cell : solution)
+                this.solution.set(cell.y * columns + cell.x);
+        }
+        draw();
+    }
+
+    /**
+     * Chooses the largest zoom showing the whole maze and centers it.
+     */
+    public void fit() {
+        zoom = MAX_ZOOM;
+        while (zoom > MIN_ZOOM && (columns * cellSize() > getWidth() || rows * cellSize() > getHeight()))
+            zoom--;
+        offsetX = Math.floor((getWidth() - columns * cellSize()) / 2);
+        offsetY = Math.floor((getHeight() - rows * cellSize()) / 2);
+        clearTiles();
+        draw();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        if (canvas.getWidth() != getWidth() || canvas.getHeight() != getHeight()) {
+            final boolean first = canvas.getWidth() == 0;
+            canvas.setWidth(getWidth());
+            canvas.setHeight(getHeight());
+            if (first)
+                fit();
+            else
+                draw();
+        }
+    }
+
+    private double cellSize() {
+        return Math.scalb(1.0, zoom);
+    }
+
+    /**
+     * Changes the zoom keeping the point under the mouse pointer in place.
+     */
+    private void zoomAt(double x, double y, int newZoom) {
+        newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, newZoom));
+        if (newZoom == zoom)
+            return;
+        final double factor = Math.scalb(1.0, newZoom - zoom);
+        offsetX = Math.floor(x - (x - offsetX) * factor);
+        offsetY = Math.floor(y - (y - offsetY) * factor);
+        zoom = newZoom;
+        clearTiles();
+        draw();
+    }
+
+    private void draw() {
+        dirtyCells.clear();
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setFill(BACKGROUND);
+        gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        if (maze == null)
+            return;
+        final double size = cellSize();
+        final int fromX = Math.max(0, (int) Math.floor(-offsetX / size));
+        final int fromY = Math.max(0, (int) Math.floor(-offsetY / size));
+        final int toX = Math.min(columns, (int) Math.ceil((canvas.getWidth() - offsetX) / size));
+        final int toY = Math.min(rows, (int) Math.ceil((canvas.getHeight() - offsetY) / size));
+        if (fromX >= toX || fromY >= toY)
+            return;
+
+        if (zoom >= IMAGE_ZOOM) {
+            for (int y = fromY; y < toY; y++) {
+                for (int x = fromX; x < toX; x++)
+                    gc.drawImage(IMAGES[typeAt(x, y)], offsetX + x * size, offsetY + y * size, size, size);
+            }
+        } else {
+            final double tileSize = TILE_CELLS * size;
+            for (int ty = fromY / TILE_CELLS; ty <= (toY - 1) / TILE_CELLS; ty++) {
+                for (int tx = fromX / TILE_CELLS; tx <= (toX - 1) / TILE_CELLS; tx++) {
+                    WritableImage tile = getTile(tx, ty);
+                    gc.drawImage(tile, offsetX + tx * tileSize, offsetY + ty * tileSize);
+                }
+            }
+        }
+
+        gc.setFill(SOLUTION_SHADE);
+        for (int index = solution.nextSetBit(0); index >= 0; index = solution.nextSetBit(index + 1)) {
+            final int x = index % columns;
+            final int y = index / columns;
+            if (x >= fromX && x < toX && y >= fromY && y < toY)
+                shadeSolutionCell(gc, x, y);
+        }
+        drawMarkers(gc);
+    }
+
+    /**
+     * Repaints the cells changed since the last repaint, or the whole canvas if a start or end marker,
+     * larger than its cell, has to be moved.
+     */
+    private void repaintDirtyCells() {
+        repaintPending = false;
+        if (dirtyCells.isEmpty())
+            return;
+        if (cellSize() < MIN_MARKER_SIZE && (startIndexOf(maze) != drawnStart || endIndexOf(maze) != drawnEnd)) {
+            draw();
+            return;
+        }
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        for (int index : dirtyCells)
+            drawCell(gc, index % columns, index / columns);
+        dirtyCells.clear();
+        drawMarkers(gc);
+    }
+
+    private void drawCell(GraphicsContext gc, int x, int y) {
+        final double size = cellSize();
+        if (zoom >= IMAGE_ZOOM) {
+            gc.drawImage(IMAGES[typeAt(x, y)], offsetX + x * size, offsetY + y * size, size, size);
+        } else {
+            // Zoomed out below a pixel per cell, only the top left cell of every square of cells is shown
+            final int cellsPerPixel = (zoom < 0) ? 1 << -zoom : 1;
+            if (x % cellsPerPixel != 0 || y % cellsPerPixel != 0)
+                return;
+            gc.setFill(toColor(COLORS[typeAt(x, y)]));
+            gc.fillRect(offsetX + x * size, offsetY + y * size, Math.max(size, 1), Math.max(size, 1));
+        }
+        if (solution.get(y * columns + x)) {
+            gc.setFill(SOLUTION_SHADE);
+            shadeSolutionCell(gc, x, y);
+        }
+    }
+
+    private void shadeSolutionCell(GraphicsContext gc, int x, int y) {
+        final Cell.Type type = maze.getType(x, y);
+        if (type == Cell.Type.START || type == Cell.Type.END)
+            return;
+        final double size = cellSize();
+        gc.fillRect(offsetX + x * size, offsetY + y * size, Math.max(size, 1), Math.max(size, 1));
+    }
+
+    /**
+     * Draws the start and end points over the cells when the cells are too small to notice them.
+     */
+    private void drawMarkers(GraphicsContext gc) {
+        drawnStart = startIndexOf(maze);
+        drawnEnd = endIndexOf(maze);
+        if (cellSize() >= MIN_MARKER_SIZE)
+            return;
+        drawMarker(gc, drawnStart, Cell.Type.START);
+        drawMarker(gc, drawnEnd, Cell.Type.END);
+    }
+
+    private void drawMarker(GraphicsContext gc, int index, Cell.Type type) {
+        if (index < 0)
+            return;
+        final double size = cellSize();
+        final double x = offsetX + (index % columns + 0.5) * size - MIN_MARKER_SIZE / 2;
+        final double y = offsetY + (index / columns + 0.5) * size - MIN_MARKER_SIZE / 2;
+        gc.setFill(toColor(COLORS[type.ordinal()]));
+        gc.fillRect(x, y, MIN_MARKER_SIZE, MIN_MARKER_SIZE);
+    }
+
+    private int typeAt(int x, int y) {
+        return maze.getType(x, y).ordinal();
+    }
+
+    private int startIndexOf(Maze maze) {
+        final Cell start = maze.getStartCell();
+        return (start != null) ? start.y * columns + start.x : -1;
+    }
+
+    private int endIndexOf(Maze maze) {
+        final Cell end = maze.getEndCell();
+        return (end != null) ? end.y * columns + end.x : -1;
+    }
+
+    private int tileColumns(int tx) {
+        return Math.min(TILE_CELLS, columns - tx * TILE_CELLS);
+    }
+
+    private int tileRows(int ty) {
+        return Math.min(TILE_CELLS, rows - ty * TILE_CELLS);
+    }
+
+    /**
+     * Finds the cached image of the tile or renders it. Every image pixel shows one cell, or the top left cell
+     * of a square of cells when zoomed out below one pixel per cell.
+     */
+    private WritableImage getTile(int tx, int ty) {
+        final long key = tileKey(tx, ty);
+        WritableImage tile = tiles.get(key);
+        if (tile != null)
+            return tile;
+        final int pixelsPerCell = (zoom > 0) ? 1 << zoom : 1;
+        final int cellsPerPixel = (zoom < 0) ? 1 << -zoom : 1;
+        final int tileWidth = (tileColumns(tx) + cellsPerPixel - 1) / cellsPerPixel * pixelsPerCell;
+        final int tileHeight = (tileRows(ty) + cellsPerPixel - 1) / cellsPerPixel * pixelsPerCell;
+        int[] pixels = new int[tileWidth * tileHeight];
+        for (int py = 0; py < tileHeight; py++) {
+            final int y = ty * TILE_CELLS + py / pixelsPerCell * cellsPerPixel;
+            for (int px = 0; px < tileWidth; px++) {
+                final int x = tx * TILE_CELLS + px / pixelsPerCell * cellsPerPixel;
+                pixels[py * tileWidth + px] = COLORS[typeAt(x, y)];
+            }
+        }
+        tile = new WritableImage(tileWidth, tileHeight);
+        tile.getPixelWriter().setPixels(0, 0, tileWidth, tileHeight, PixelFormat.getIntArgbInstance(), pixels, 0, tileWidth);
+        tiles.put(key, tile);
+        cachedPixels += (long) tileWidth * tileHeight;
+        Iterator<WritableImage> eldest = tiles.values().iterator();
+        while (cachedPixels > TILE_CACHE_PIXELS && eldest.hasNext()) {
+            WritableImage evicted = eldest.next();
+            if (evicted == tile)
+                break;
+            cachedPixels -= (long) evicted.getWidth() * evicted.getHeight();
+            eldest.remove();
+        }
+        return tile;
+    }
+
+    /**
+     * Redraws the cell on its tile image, if the tile is cached and the cell is shown on it.
+     */
+    private void updateTile(int x, int y) {
+        if (zoom >= IMAGE_ZOOM)
+            return;
+        WritableImage tile = tiles.get(tileKey(x / TILE_CELLS, y / TILE_CELLS));
+        final int cellsPerPixel = (zoom < 0) ? 1 << -zoom : 1;
+        if (tile == null || x % cellsPerPixel != 0 || y % cellsPerPixel != 0)
+            return;
+        final int pixelsPerCell = (zoom > 0) ? 1 << zoom : 1;
+        final int px = x % TILE_CELLS / cellsPerPixel * pixelsPerCell;
+        final int py = y % TILE_CELLS / cellsPerPixel * pixelsPerCell;
+        final int argb = COLORS[typeAt(x, y)];
+        for (int dy = 0; dy < pixelsPerCell; dy++) {
+            for (int dx = 0; dx < pixelsPerCell; dx++)
+                tile.getPixelWriter().setArgb(px + dx, py + dy, argb);
+        }
+    }
+
+    private static long tileKey(int tx, int ty) {
+        return ((long) ty << 32) | tx;
+    }
+
+    private void clearTiles() {
+        tiles.clear();
+        cachedPixels = 0;
+    }
+
+    private static Color toColor(int argb) {
+        return Color.rgb((argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF);
+    }
+
+    private static int averageColor(Image image) {
+        PixelReader reader = image.getPixelReader();
+        final int width = (int) image.getWidth();
+        final int height = (int) image.getHeight();
+        long red = 0;
+        long green = 0;
+        long blue = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int argb = reader.getArgb(x, y);
+                red += (argb >> 16) & 0xFF;
+                green += (argb >> 8) & 0xFF;
+                blue += argb & 0xFF;
+            }
+        }
+        final long count = (long) width * height;
+        return 0xFF000000 | (int) (red / count) << 16 | (int) (green / count) << 8 | (int) (blue / count);
+    }
+}
@@ -1,48 +1,65 @@
 package ru.spbstu.shortestmazepath.controller;
 
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
-import javafx.scene.Node;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-import javafx.scene.layout.ColumnConstraints;
-import javafx.scene.layout.GridPane;
-import javafx.scene.layout.RowConstraints;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import javafx.util.StringConverter;
+import ru.spbstu.shortestmazepath.model.Algorithm;
 import ru.spbstu.shortestmazepath.model.Cell;
+import ru.spbstu.shortestmazepath.model.Generator;
+import ru.spbstu.shortestmazepath.model.IncrementalPlanner;
 import ru.spbstu.shortestmazepath.model.Maze;
+import ru.spbstu.shortestmazepath.model.MazeLimits;
 import ru.spbstu.shortestmazepath.model.MazeManager;
+import ru.spbstu.shortestmazepath.model.MetricsRegistry;
+import ru.spbstu.shortestmazepath.model.SearchMonitor;
+import ru.spbstu.shortestmazepath.model.SolutionCache;
+import ru.spbstu.shortestmazepath.model.SolverStats;
 import ru.spbstu.shortestmazepath.util.StringsSupplier;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 public class MazeController implements Initializable {
 
+    /**
+     * Limits of the mazes the window can display. The model accepts larger ones, see {@link MazeLimits}.
+     */
     public final static int MIN_MAZE_SIZE = 3;
-    public final static int MAX_MAZE_SIZE = 16;
+    public final static int MAX_MAZE_SIZE = 4096;
 
-    private final static double SOLUTION_OPACITY = 0.5;
     private final static int INITIAL_MAZE_SIZE = 7;
-    private final static int GRID_PANE_ACTUAL_SIZE = 610;
-    private final static int CELL_SIZE = GRID_PANE_ACTUAL_SIZE / MAX_MAZE_SIZE;
+    private final static int SOLUTION_CACHE_SIZE = 32;
+    private final static int SOLVE_TIMEOUT_SECONDS = 30;
+    private final static int PROGRESS_INTERVAL_MILLIS = 100;
 
     @FXML
-    public ChoiceBox<Integer> heightChoiceBox;
+    public Spinner<Integer> heightSpinner;
+    @FXML
+    public Spinner<Integer> widthSpinner;
+    @FXML
+    public ChoiceBox<Algorithm> algorithmChoiceBox;
+    @FXML
+    public CheckBox liveSolveCheckBox;
     @FXML
-    public ChoiceBox<Integer> widthChoiceBox;
+    public ChoiceBox<Cell.Type> brushChoiceBox;
     @FXML
     public Button startPointButton;
     @FXML
@@ -54,47 +71,33 @@ public class MazeController implements Initializable {
     @FXML
     public Button solveButton;
     @FXML
+    public Button cancelButton;
+    @FXML
+    public ProgressIndicator solveProgress;
+    @FXML
     public Label statusLabel;
     @FXML
-    public GridPane mazePane;
+    public MazeCanvas mazeCanvas;
 
+    private final SolutionCache solutions = new SolutionCache(SOLUTION_CACHE_SIZE);
+    /**
+     * The maze being edited. The editor changes it in place, and the canvas draws it.
+     */
+    private Maze maze = new Maze(INITIAL_MAZE_SIZE, INITIAL_MAZE_SIZE);
     private List<Cell> solution = null;
+    /**
+     * The planner repairing the solution on every edit, present only in the live solve mode.
+     */
+    private IncrementalPlanner planner = null;
+    /**
+     * The monitor of the search running in the background, if any.
+     */
+    private SearchMonitor solveMonitor = null;
     private boolean solutionHighlighted = false;
     private boolean mazeChanged = false;
     private boolean settingStart = false;
     private boolean settingEnd = false;
 
-    /**
-     * Describes a type of image used in maze.
-     */
-    private enum Type {
-        PATH(new Image(Type.class.getResourceAsStream("path.png"))),
-        WALL(new Image(Type.class.getResourceAsStream("wall.png"))),
-        START(new Image(Type.class.getResourceAsStream("start.png"))),
-        END(new Image(Type.class.getResourceAsStream("end.png")));
-
-        private final Image image;
-
-        Type(Image image) {
-            this.image = image;
-        }
-
-        private static Type identify(ImageView view) {
-            final Image img = view.getImage();
-            if (img.equals(PATH.image))
-                return PATH;
-            else if (img.equals(WALL.image))
-                return WALL;
-            else if (img.equals(START.image))
-                return START;
-            else
-                return END;
-        }
-    }
-
-    private ImageView startPoint;
-    private ImageView endPoint;
-
     private ResourceBundle strings;
 
     @Override
@@ -105,226 +108,117 @@ public class MazeController implements Initializable {
             throw new IllegalStateException("Missing 'strings' file!");
         }
 
-        ObservableList<Integer> options = getSizeOptionsList();
-        heightChoiceBox.setItems(options);
-        widthChoiceBox.setItems(options);
-
-        initializeMaze();
+        mazeCanvas.setMaze(maze);
+        mazeCanvas.setOnCellClicked(this::onCellClicked);
         statusLabel.setText(strings.getString("greeting"));
 
-        heightChoiceBox.setValue(mazePane.getRowCount());
-        widthChoiceBox.setValue(mazePane.getColumnCount());
-
-        heightChoiceBox.getSelectionModel().selectedItemProperty().addListener((obs, ov, nv) -> {
-            setMazeHeight(heightChoiceBox.getValue());
+        heightSpinner.setValueFactory(
+                new SpinnerValueFactory.IntegerSpinnerValueFactory(MIN_MAZE_SIZE, MAX_MAZE_SIZE, INITIAL_MAZE_SIZE));
+        widthSpinner.setValueFactory(
+                new SpinnerValueFactory.IntegerSpinnerValueFactory(MIN_MAZE_SIZE, MAX_MAZE_SIZE, INITIAL_MAZE_SIZE));
+        heightSpinner.valueProperty().addListener((obs, ov, nv) -> {
             hideSolution();
-            statusLabel.setText(strings.getString("constructing"));
+            setMazeSize(nv, maze.getWidth());
         });
-        widthChoiceBox.getSelectionModel().selectedItemProperty().addListener((obs, ov, nv) -> {
-            setMazeWidth(widthChoiceBox.getValue());
+        widthSpinner.valueProperty().addListener((obs, ov, nv) -> {
             hideSolution();
-            statusLabel.setText(strings.getString("constructing"));
+            setMazeSize(maze.getHeight(), nv);
         });
 
-        checkStartEndSet();
-    }
-
-    /**
-     * Generates a maze of initial size.
-     */
-    private void initializeMaze() {
-        setGridPaneConstraints(CELL_SIZE);
-
-        ImageView cellView = prepareMazeCell();
-        mazePane.addColumn(0);
-        mazePane.addRow(0);
-        mazePane.add(cellView, 0, 0);
-
-        int i = 0;
-        while (++i < INITIAL_MAZE_SIZE) {
-            addMazeRow();
-            addMazeColumn();
-        }
-    }
-
-    /**
-     * Sets proper sizes for GridPane rows and columns, making cells square.
-     *
-     * @param cellSize the size of the square cell side.
-     */
-    private void setGridPaneConstraints(int cellSize) {
-        RowConstraints rowConstraints = new RowConstraints();
-        rowConstraints.setPrefHeight(cellSize);
-
-        ColumnConstraints columnConstraints = new ColumnConstraints();
-        columnConstraints.setPrefWidth(cellSize);
-
-        mazePane.getRowConstraints().add(rowConstraints);
-        mazePane.getColumnConstraints().add(columnConstraints);
-    }
-
-    /**
-     * Generates ObservableList containing all size options available.
-     *
-     * @return ObservableList&lt;Integer&gt; containing all size options available.
-     */
-    private ObservableList<Integer> getSizeOptionsList() {
-        List<Integer> options = new ArrayList<>();
-        for (int i = MIN_MAZE_SIZE; i <= MAX_MAZE_SIZE; i++) {
-            options.add(i);
-        }
-        return FXCollections.observableArrayList(options);
-    }
-
-    /**
-     * Adds a new row with maze cells to the field.
-     */
-    private void addMazeRow() {
-        int index = mazePane.getRowCount();
-        mazePane.addRow(index);
-
-        for (int i = 0; i < mazePane.getColumnCount(); i++) {
-            ImageView cellView = prepareMazeCell();
-            mazePane.add(cellView, i, index);
-        }
-    }
+        algorithmChoiceBox.setItems(FXCollections.observableArrayList(Algorithm.values()));
+        algorithmChoiceBox.setValue(Algorithm.AUTO);
+        algorithmChoiceBox.getSelectionModel().selectedItemProperty().addListener((obs, ov, nv) -> hideSolution());
+        liveSolveCheckBox.selectedProperty().addListener((obs, ov, nv) -> {
+            hideSolution();
+            restartLiveSolve();
+        });
+        brushChoiceBox.setItems(FXCollections.observableArrayList(Cell.Type.WALL, Cell.Type.MUD, Cell.Type.DOOR));
+        brushChoiceBox.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(Cell.Type type) {
+                return (type != null) ? strings.getString(type.name().toLowerCase() + "Brush") : "";
+            }
 
-    /**
-     * Adds a new column with maze cells to the field.
-     */
-    private void addMazeColumn() {
-        int index = mazePane.getColumnCount();
-        mazePane.addColumn(index);
+            @Override
+            public Cell.Type fromString(String string) {
+                for (Cell.Type type : brushChoiceBox.getItems()) {
+                    if (toString(type).equals(string))
+                        return type;
+                }
+                return null;
+            }
+        });
+        brushChoiceBox.setValue(Cell.Type.WALL);
 
-        for (int i = 0; i < mazePane.getRowCount(); i++) {
-            ImageView cellView = prepareMazeCell();
-            mazePane.add(cellView, index, i);
-        }
+        checkStartEndSet();
     }
 
     /**
      * Checks both start and end points are set, disabling "Solve" button if false.
      */
     private void checkStartEndSet() {
-        solveButton.setDisable(
-                startPoint == null || endPoint == null
-                        || checkNotOnField(startPoint) || checkNotOnField(endPoint)
-                        || Type.identify(startPoint) != (Type.START) || Type.identify(endPoint) != (Type.END)
-        );
+        solveButton.setDisable(maze.getStartCell() == null || maze.getEndCell() == null);
     }
 
     /**
-     * Checks if the node is on the maze field.
-     *
-     * @param node node to check.
-     * @return false if the node is on the field, true otherwise.
-     */
-    private boolean checkNotOnField(Node node) {
-        return GridPane.getRowIndex(node) == null || GridPane.getColumnIndex(node) == null
-                || GridPane.getRowIndex(node) >= mazePane.getRowCount() || GridPane.getColumnIndex(node) >= mazePane.getColumnCount();
-    }
-
-    /**
-     * Changes the row count of the maze field.
+     * Changes the size of the maze field, keeping the cells which stay on it.
      *
      * @param height the row count to be set.
+     * @param width  the column count to be set.
      */
-    private void setMazeHeight(int height) {
-        int currentHeight = mazePane.getRowCount();
-        while (height != currentHeight) {
-            mazeChanged = true;
-            if (height > currentHeight) {
-                addMazeRow();
-            } else {
-                final int removeIndex = currentHeight - 1;
-                mazePane.getChildren().removeIf(
-                        node -> GridPane.getRowIndex(node) == null || GridPane.getRowIndex(node) == removeIndex
-                );
-            }
-            currentHeight = mazePane.getRowCount();
-        }
-
-        if (startPoint != null && checkNotOnField(startPoint))
-            startPoint = null;
-        if (endPoint != null && checkNotOnField(endPoint))
-            endPoint = null;
-
+    private void setMazeSize(int height, int width) {
+        if (height == maze.getHeight() && width == maze.getWidth())
+            return;
+        mazeChanged = true;
+        maze = maze.resized(height, width);
+        mazeCanvas.setMaze(maze);
         checkStartEndSet();
+        statusLabel.setText(strings.getString("constructing"));
+        restartLiveSolve();
     }
 
     /**
-     * Changes the column count of the maze field.
-     *
-     * @param width the column count to be set.
+     * Edits the clicked cell: places the start or the end point if one is being chosen,
+     * or toggles the cell type chosen as the brush otherwise.
      */
-    private void setMazeWidth(int width) {
-        int currentWidth = mazePane.getColumnCount();
-        while (width != currentWidth) {
-            mazeChanged = true;
-            if (width > currentWidth) {
-                addMazeColumn();
-            } else {
-                final int removeIndex = currentWidth - 1;
-                mazePane.getChildren().removeIf(
-                        node -> GridPane.getColumnIndex(node) == null || GridPane.getColumnIndex(node) == removeIndex
-                );
+    private void onCellClicked(int x, int y) {
+        mazeChanged = true;
+        hideSolution();
+        final Cell.Type type = maze.getType(x, y);
+        if (settingStart || settingEnd) {
+            if (settingStart && type != Cell.Type.END) {
+                Cell startCell = maze.getStartCell();
+                if (startCell != null)
+                    setCellType(startCell.x, startCell.y, Cell.Type.PATH);
+                setCellType(x, y, Cell.Type.START);
+                settingStart = false;
+                statusLabel.setText(strings.getString("startSet"));
+            } else if (settingEnd && type != Cell.Type.START) {
+                Cell endCell = maze.getEndCell();
+                if (endCell != null)
+                    setCellType(endCell.x, endCell.y, Cell.Type.PATH);
+                setCellType(x, y, Cell.Type.END);
+                settingEnd = false;
+                statusLabel.setText(strings.getString("endSet"));
             }
-            currentWidth = mazePane.getColumnCount();
+        } else {
+            statusLabel.setText(strings.getString("constructing"));
+            setCellType(x, y, (type == Cell.Type.PATH) ? brushChoiceBox.getValue() : Cell.Type.PATH);
         }
-
-        if (startPoint != null && checkNotOnField(startPoint))
-            startPoint = null;
-        if (endPoint != null && checkNotOnField(endPoint))
-            endPoint = null;
-
         checkStartEndSet();
+        if (planner != null)
+            showLiveSolution();
     }
 
     /**
-     * Generates an ImageView maze cell.
-     *
-     * @return a new maze cell.
+     * Changes the cell of the maze, through the live planner if there is one, and repaints it.
      */
-    private ImageView prepareMazeCell() {
-        ImageView view = new ImageView();
-        view.setImage(Type.PATH.image);
-        view.setFitHeight(CELL_SIZE);
-        view.setFitWidth(CELL_SIZE);
-
-        view.setOnMouseClicked(mouseEvent -> {
-            mazeChanged = true;
-            hideSolution();
-            if (settingStart || settingEnd) {
-                if (settingStart && view != endPoint) {
-                    if (startPoint != null)
-                        startPoint.setImage(Type.PATH.image);
-                    view.setImage(Type.START.image);
-                    startPoint = view;
-                    settingStart = false;
-                    statusLabel.setText(strings.getString("startSet"));
-                } else if (settingEnd && view != startPoint) {
-                    if (endPoint != null)
-                        endPoint.setImage(Type.PATH.image);
-                    view.setImage(Type.END.image);
-                    endPoint = view;
-                    settingEnd = false;
-                    statusLabel.setText(strings.getString("endSet"));
-                }
-            } else {
-                statusLabel.setText(strings.getString("constructing"));
-                Type identify = Type.identify(view);
-                if (identify == Type.START)
-                    startPoint = null;
-                if (identify == Type.END)
-                    endPoint = null;
-                if (identify == Type.PATH)
-                    view.setImage(Type.WALL.image);
-                else
-                    view.setImage(Type.PATH.image);
-            }
-            checkStartEndSet();
-        });
-        return view;
+    private void setCellType(int x, int y, Cell.Type type) {
+        if (planner != null)
+            planner.setType(x, y, type);
+        else
+            maze.setType(x, y, type);
+        mazeCanvas.cellChanged(x, y);
     }
 
     public void onStartSet() {
@@ -343,7 +237,8 @@ public class MazeController implements Initializable {
 
     public void onRandom() {
         showResetConfirmation(strings.getString("resetTitle"), then -> {
-            loadMaze(Maze.random());
+            loadMaze(Generator.BACKTRACKER.generate(maze.getHeight(), maze.getWidth(),
+                    ThreadLocalRandom.current().nextLong()));
             mazeChanged = false;
             statusLabel.setText(strings.getString("randomOk"));
         });
@@ -353,25 +248,17 @@ public class MazeController implements Initializable {
      * Returns the maze to its initial state.
      */
     private void resetMaze() {
-        startPoint = null;
-        endPoint = null;
-        checkStartEndSet();
         hideSolution();
-
-        setMazeHeight(INITIAL_MAZE_SIZE);
-        setMazeWidth(INITIAL_MAZE_SIZE);
-
-        mazePane.getChildren().forEach(node -> {
-            if (node instanceof ImageView)
-                ((ImageView) node).setImage(Type.PATH.image);
-        });
-
-        heightChoiceBox.setValue(INITIAL_MAZE_SIZE);
-        widthChoiceBox.setValue(INITIAL_MAZE_SIZE);
+        maze = new Maze(INITIAL_MAZE_SIZE, INITIAL_MAZE_SIZE);
+        mazeCanvas.setMaze(maze);
+        heightSpinner.getValueFactory().setValue(INITIAL_MAZE_SIZE);
+        widthSpinner.getValueFactory().setValue(INITIAL_MAZE_SIZE);
+        checkStartEndSet();
 
         mazeChanged = false;
         settingStart = false;
         settingEnd = false;
+        restartLiveSolve();
         statusLabel.setText(strings.getString("resetOk"));
     }
 
@@ -379,6 +266,17 @@ public class MazeController implements Initializable {
         showResetConfirmation(strings.getString("resetTitle"), then -> resetMaze());
     }
 
+    /**
+     * Shows the statistics of all the searches run so far.
+     */
+    public void onMetrics() {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle(strings.getString("metricsTitle"));
+        alert.setHeaderText(null);
+        alert.setContentText(MetricsRegistry.getDefault().report());
+        alert.show();
+    }
+
     public void onExit() {
         showResetConfirmation(
                 strings.getString("exitTitle"),
@@ -422,44 +320,158 @@ public class MazeController implements Initializable {
     }
 
     public void onSolve() {
-        if (solutionHighlighted) return;
+        if (solutionHighlighted || solveMonitor != null) return;
+        if (planner != null) {
+            showLiveSolution();
+            return;
+        }
+        startSolving(new SolveTask(maze, algorithmChoiceBox.getValue(), null));
+    }
+
+    /**
+     * Runs the search in the background, showing its progress and cancelling it on timeout.
+     */
+    private void startSolving(SolveTask task) {
+        final long startTime = System.nanoTime();
+        final long timeout = TimeUnit.SECONDS.toNanos(SOLVE_TIMEOUT_SECONDS);
+        Timeline progress = new Timeline(new KeyFrame(Duration.millis(PROGRESS_INTERVAL_MILLIS), event -> {
+            statusLabel.setText(String.format(strings.getString("solving"), task.monitor.getProgress()));
+            if (System.nanoTime() - startTime > timeout)
+                task.monitor.cancel();
+        }));
+        progress.setCycleCount(Animation.INDEFINITE);
+        task.setOnSucceeded(event -> {
+            progress.stop();
+            setSolving(null);
+            solution = task.getValue();
+            showSolution();
+            SolverStats stats = task.monitor.getStats();
+            if (task.planner != null)
+                statusLabel.setText(String.format(strings.getString("liveSolved"), task.solveTime / 1e6));
+            else if (stats != null)
+                statusLabel.setText(String.format(strings.getString("solvedStats"), task.solveTime / 1e6,
+                        stats.getExpandedNodes(), stats.getGeneratedNodes(), stats.getPeakOpenSetSize()));
+            else
+                statusLabel.setText(String.format(strings.getString("solved"), task.solveTime / 1e6));
+        });
+        task.setOnFailed(event -> {
+            progress.stop();
+            setSolving(null);
+            Throwable e = task.getException();
+            if (e instanceof IllegalArgumentException)
+                statusLabel.setText(strings.getString("noPath"));
+            else if (e instanceof CancellationException && System.nanoTime() - startTime > timeout)
+                statusLabel.setText(String.format(strings.getString("timeout"), SOLVE_TIMEOUT_SECONDS));
+            else if (e instanceof CancellationException)
+                statusLabel.setText(strings.getString("cancelled"));
+            else
+                showErrorMessage(e.toString());
+        });
+        setSolving(task.monitor);
+        progress.play();
+        Thread thread = new Thread(task, "maze-solver");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void onCancel() {
+        if (solveMonitor != null)
+            solveMonitor.cancel();
+    }
+
+    /**
+     * Locks the maze and the controls changing it while a search is running in the background.
+     *
+     * @param monitor the monitor of the search started, or null if the search has finished.
+     */
+    private void setSolving(SearchMonitor monitor) {
+        solveMonitor = monitor;
+        final boolean solving = monitor != null;
+        mazeCanvas.setEditable(!solving);
+        for (Control control : List.of(heightSpinner, widthSpinner, algorithmChoiceBox, liveSolveCheckBox,
+                brushChoiceBox, startPointButton, endPointButton, randomButton, resetButton))
+            control.setDisable(solving);
+        cancelButton.setDisable(!solving);
+        solveProgress.setVisible(solving);
+        if (solving)
+            solveButton.setDisable(true);
+        else
+            checkStartEndSet();
+    }
+
+    /**
+     * Solves the maze in the background, with the live planner if there is one. The maze is not edited meanwhile,
+     * as the editor is locked.
+     */
+    private class SolveTask extends Task<List<Cell>> {
+        private final Maze maze;
+        private final Algorithm algorithm;
+        private final IncrementalPlanner planner;
+        private final SearchMonitor monitor = new SearchMonitor();
+        private long solveTime;
+
+        private SolveTask(Maze maze, Algorithm algorithm, IncrementalPlanner planner) {
+            this.maze = maze;
+            this.algorithm = algorithm;
+            this.planner = planner;
+        }
+
+        @Override
+        protected List<Cell> call() {
+            final long startTime = System.nanoTime();
+            List<Cell> path = (planner != null) ? planner.solve(monitor) : solutions.solve(maze, algorithm, monitor);
+            solveTime = System.nanoTime() - startTime;
+            return path;
+        }
+    }
+
+    /**
+     * Creates a new planner for the maze on the screen if the live solve mode is on, or drops the planner otherwise.
+     */
+    private void restartLiveSolve() {
+        planner = liveSolveCheckBox.isSelected() ? new IncrementalPlanner(maze) : null;
+        if (planner != null)
+            showLiveSolution();
+    }
+
+    /**
+     * Highlights the path kept by the planner, if both start and end points are set. Only the repair of a finished
+     * search after an edit runs on the FX thread: a new or resumed search runs in the background like a normal solve.
+     */
+    private void showLiveSolution() {
+        hideSolution();
+        if (solveButton.isDisabled())
+            return;
+        if (!planner.hasCompleteSearch()) {
+            startSolving(new SolveTask(maze, algorithmChoiceBox.getValue(), planner));
+            return;
+        }
         try {
-            final long startTime = System.currentTimeMillis();
-            solution = mazeViewToModel().solve();
-            final long endTime = System.currentTimeMillis();
-            setSolutionOpacity(solution, SOLUTION_OPACITY);
-            solutionHighlighted = true;
-            statusLabel.setText(String.format(strings.getString("solved"), endTime - startTime));
+            final long startTime = System.nanoTime();
+            solution = planner.solve();
+            final long endTime = System.nanoTime();
+            showSolution();
+            statusLabel.setText(String.format(strings.getString("liveSolved"), (endTime - startTime) / 1e6));
         } catch (IllegalArgumentException e) {
             statusLabel.setText(strings.getString("noPath"));
         }
     }
 
     /**
-     * Darkens the solution cells if they are highlighted.
+     * Removes the highlighting of the solution cells.
      */
     private void hideSolution() {
         if (solutionHighlighted)
-            setSolutionOpacity(solution, 1);
+            mazeCanvas.setSolution(null);
+        solutionHighlighted = false;
     }
 
     /**
-     * Changes the opacity for solution cells.
-     *
-     * @param solution list of cells to be changed.
-     * @param opacity  opacity value to be set.
+     * Highlights the solution cells.
      */
-    private void setSolutionOpacity(List<Cell> solution, double opacity) {
-        for (Cell cell : solution) {
-            mazePane.getChildren().stream()
-                    .filter(node ->
-                            GridPane.getColumnIndex(node) == cell.x && GridPane.getRowIndex(node) == cell.y
-                                    && node instanceof ImageView && !node.equals(startPoint) && !node.equals(endPoint)
-                    )
-                    .map(node -> (ImageView) node)
-                    .collect(Collectors.toList()).forEach(view -> view.setOpacity(opacity));
-        }
-        solutionHighlighted = opacity == SOLUTION_OPACITY;
+    private void showSolution() {
+        mazeCanvas.setSolution(solution);
+        solutionHighlighted = true;
     }
 
     /**
@@ -471,14 +483,17 @@ public class MazeController implements Initializable {
         FileChooser chooser = new FileChooser();
         chooser.setTitle("Select file...");
         chooser.getExtensionFilters().addAll(
-                new FileChooser.ExtensionFilter("Maze files", "*.maze"),
+                new FileChooser.ExtensionFilter("Maze files", "*" + MazeManager.Format.TEXT.getExtension()),
+                new FileChooser.ExtensionFilter("Binary maze files", "*" + MazeManager.Format.BINARY.getExtension()),
+                new FileChooser.ExtensionFilter("Compressed maze files", "*" + MazeManager.Format.COMPRESSED.getExtension()),
                 new FileChooser.ExtensionFilter("All files", "*.*")
         );
         return chooser;
     }
 
     public void onLoad() {
-        Stage stage = (Stage) mazePane.getScene().getWindow();
+        if (solveMonitor != null) return;
+        Stage stage = (Stage) mazeCanvas.getScene().getWindow();
         File file = prepareFileChooser().showOpenDialog(stage);
         if (file != null) {
             showResetConfirmation(
@@ -498,11 +513,11 @@ public class MazeController implements Initializable {
     }
 
     public void onSave() {
-        Stage stage = (Stage) mazePane.getScene().getWindow();
+        Stage stage = (Stage) mazeCanvas.getScene().getWindow();
         File file = prepareFileChooser().showSaveDialog(stage);
         if (file != null) {
             try {
-                MazeManager.save(mazeViewToModel(), file);
+                MazeManager.save(maze, file);
                 mazeChanged = false;
                 statusLabel.setText(strings.getString("saveOk"));
             } catch (IOException e) {
@@ -516,59 +531,18 @@ public class MazeController implements Initializable {
      * Shows the maze loaded from specified file.
      *
      * @param maze model maze representation.
+     * @throws IllegalArgumentException if the maze is too large to be displayed.
      */
     private void loadMaze(Maze maze) {
+        if (maze.getHeight() < MIN_MAZE_SIZE || maze.getHeight() > MAX_MAZE_SIZE
+                || maze.getWidth() < MIN_MAZE_SIZE || maze.getWidth() > MAX_MAZE_SIZE)
+            throw new IllegalArgumentException(String.format(strings.getString("displayLimits"), MIN_MAZE_SIZE, MAX_MAZE_SIZE));
         hideSolution();
-        heightChoiceBox.setValue(maze.getHeight());
-        widthChoiceBox.setValue(maze.getWidth());
-        for (Cell[] column : maze.getMazeGrid()) {
-            for (Cell cell : column) {
-                Image img = Type.valueOf(cell.type.name()).image;
-                List<ImageView> l = mazePane.getChildren().stream()
-                        .filter(node -> node instanceof ImageView &&
-                                GridPane.getColumnIndex(node) == cell.x && GridPane.getRowIndex(node) == cell.y)
-                        .map(node -> (ImageView) node)
-                        .collect(Collectors.toList());
-                if (l.size() > 1)
-                    throw new IllegalStateException("Something went wrong: more than one cell for actually one point on field");
-                ImageView imageView = l.get(0);
-                imageView.setImage(img);
-                if (cell.type == Cell.Type.START) {
-                    startPoint = imageView;
-                } else if (cell.type == Cell.Type.END) {
-                    endPoint = imageView;
-                }
-            }
-        }
+        this.maze = maze;
+        mazeCanvas.setMaze(maze);
+        heightSpinner.getValueFactory().setValue(maze.getHeight());
+        widthSpinner.getValueFactory().setValue(maze.getWidth());
         checkStartEndSet();
-    }
-
-    /**
-     * Converts view maze representation to model Maze class.
-     *
-     * @return an instance of Maze class that represents the maze currently on the screen.
-     */
-    private Maze mazeViewToModel() {
-        final int height = heightChoiceBox.getValue();
-        final int width = widthChoiceBox.getValue();
-        Cell[][] mazeCells = new Cell[width][height];
-        Cell startCell = null;
-        Cell endCell = null;
-        for (int i = 0; i < width; i++) {
-            int currentColumn = i;
-            List<ImageView> column = mazePane.getChildren().stream()
-                    .filter(node -> GridPane.getColumnIndex(node) == currentColumn && node instanceof ImageView)
-                    .map(node -> (ImageView) node)
-                    .collect(Collectors.toList());
-            for (int j = 0; j < height; j++) {
-                mazeCells[i][j] = new Cell(i, j, Cell.Type.valueOf(Type.identify(column.get(j)).toString()));
-                if (mazeCells[i][j].type == Cell.Type.START) {
-                    startCell = mazeCells[i][j];
-                } else if (mazeCells[i][j].type == Cell.Type.END) {
-                    endCell = mazeCells[i][j];
-                }
-            }
-        }
-        return new Maze(height, width, startCell, endCell, mazeCells);
+        restartLiveSolve();
     }
 }
@@ -0,0 +1,65 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the shortest path using the A* algorithm with the Euclidean distance heuristic.
+ * Cells are addressed by their linear indices, so the search state lives in primitive arrays
+ * and the open set is an indexed heap with decrease-key.
+ */
+class AStarSolver implements MazeSolver {
+
+    @Override
+    public List<Cell> solve(Maze maze, SearchMonitor monitor) throws IllegalArgumentException {
+        final int start = maze.getStartIndex();
+        final int end = maze.getEndIndex();
+        if (start == Maze.NO_CELL || end == Maze.NO_CELL)
+            throw new IllegalArgumentException("Both start and end points must be set!");
+        final int width = maze.getWidth();
+        final int endX = end % width;
+        final int endY = end / width;
+        final int size = width * maze.getHeight();
+
+        int[] cost = new int[size]; // the cost of the cheapest path from start to a cell
+        Arrays.fill(cost, Integer.MAX_VALUE);
+        int[] cameFrom = new int[size];
+        long[] visited = new long[Maze.wordCount(maze.getHeight(), width)];
+        IndexedHeap toVisit = new IndexedHeap(size);
+        int[] neighbours = new int[4];
+
+        cost[start] = 0;
+        toVisit.add(start, priority(0, start % width - endX, start / width - endY));
+        monitor.generated(1);
+        while (!toVisit.isEmpty()) {
+            final int current = toVisit.poll();
+            monitor.expanded();
+            if (current == end)
+                return maze.tracePath(cameFrom, start, end);
+            Maze.setBit(visited, current);
+            final int score = cost[current] + 1;
+            final int count = maze.neighbours(current, neighbours);
+            for (int i = 0; i < count; i++) {
+                final int neighbour = neighbours[i];
+                if (Maze.testBit(visited, neighbour) || score >= cost[neighbour])
+                    continue;
+                final boolean isNew = cost[neighbour] == Integer.MAX_VALUE;
+                cost[neighbour] = score;
+                cameFrom[neighbour] = current;
+                toVisit.add(neighbour, priority(score, neighbour % width - endX, neighbour / width - endY));
+                if (isNew)
+                    monitor.generated(toVisit.size());
+            }
+        }
+        throw new IllegalArgumentException("No path between start and end point exists!");
+    }
+
+    /**
+     * Encodes the f-score of a cell as a heap priority.
+     * The bit pattern of a non-negative double is ordered the same way as its value,
+     * so the heuristic is computed once per relaxation instead of once per comparison.
+     */
+    private static long priority(int cost, int dx, int dy) {
+        return Double.doubleToLongBits(cost + Math.sqrt((double) dx * dx + (double) dy * dy));
+    }
+}
@@ -0,0 +1,55 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.function.Supplier;
+
+/**
+ * Describes a path finding algorithm the maze can be solved with.
+ * Only {@link #TERRAIN} takes the costs of the terrain cells into account; {@link #AUTO} chooses it for mazes
+ * with terrain, and the other algorithms find the path with the fewest moves.
+ * {@link #HIERARCHICAL} finds near-optimal paths rather than the shortest ones, so {@link #AUTO} never picks it.
+ */
+public enum Algorithm {
+    AUTO("Automatic", AutoSolver::new),
+    BFS("Breadth-first search", BfsSolver::new),
+    A_STAR("A*", AStarSolver::new),
+    BUCKET_A_STAR("A* with a bucket queue", BucketAStarSolver::new),
+    JUMP_POINT("Jump Point Search", JumpPointSolver::new),
+    BIDIRECTIONAL("Bidirectional BFS", BidirectionalSolver::new),
+    PARALLEL_BFS("Parallel BFS", ParallelBfsSolver::new),
+    TERRAIN("A* over terrain costs", TerrainSolver::new),
+    HIERARCHICAL("Hierarchical A* (near-optimal)", HierarchicalSolver::new);
+
+    private final String title;
+    private final Supplier<MazeSolver> factory;
+
+    Algorithm(String title, Supplier<MazeSolver> factory) {
+        this.title = title;
+        this.factory = factory;
+    }
+
+    /**
+     * Creates a new engine implementing the algorithm.
+     */
+    public MazeSolver getSolver() {
+        return factory.get();
+    }
+
+    /**
+     * Checks whether the algorithm always finds the shortest path, which all of them but {@link #HIERARCHICAL} do.
+     */
+    public boolean isOptimal() {
+        return this != HIERARCHICAL;
+    }
+
+    /**
+     * Finds the algorithm {@link #AUTO} would use for the maze with the specified statistics.
+     */
+    public static Algorithm choose(MazeStatistics statistics) {
+        return AutoSolver.choose(statistics);
+    }
+
+    @Override
+    public String toString() {
+        return title;
+    }
+}
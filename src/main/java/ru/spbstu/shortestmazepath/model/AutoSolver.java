@@ -0,0 +1,52 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.List;
+
+/**
+ * Chooses the engine for every maze from its {@link MazeStatistics}.
+ */
+class AutoSolver implements MazeSolver {
+
+    /**
+     * Mazes up to this many cells are solved with BFS: any bookkeeping costs more than the search itself.
+     */
+    static final int SMALL_MAZE_CELLS = 4096;
+    /**
+     * Mazes with at least this share of walls are mostly corridors where the heuristic does not help.
+     */
+    static final double DENSE_WALL_DENSITY = 0.35;
+    /**
+     * Mazes with at most this share of walls are mostly open rooms where jump points pay off.
+     */
+    static final double OPEN_WALL_DENSITY = 0.1;
+    /**
+     * Start and end points this close are connected quickly by the goal-directed A* whatever the maze is.
+     */
+    static final int NEAR_DISTANCE = 32;
+    /**
+     * Mazes from this many cells which are not mostly open are searched on all the cores.
+     */
+    static final int HUGE_MAZE_CELLS = 1 << 24;
+
+    @Override
+    public List<Cell> solve(Maze maze, SearchMonitor monitor) throws IllegalArgumentException {
+        return choose(new MazeStatistics(maze)).getSolver().solve(maze, monitor);
+    }
+
+    static Algorithm choose(MazeStatistics statistics) {
+        if (statistics.hasTerrain())
+            return Algorithm.TERRAIN;
+        if (statistics.getCellCount() <= SMALL_MAZE_CELLS)
+            return Algorithm.BFS;
+        if (statistics.getStartEndDistance() >= 0 && statistics.getStartEndDistance() <= NEAR_DISTANCE)
+            return Algorithm.BUCKET_A_STAR;
+        if (statistics.getCellCount() >= HUGE_MAZE_CELLS && statistics.getWallDensity() > OPEN_WALL_DENSITY
+                && Runtime.getRuntime().availableProcessors() > 1)
+            return Algorithm.PARALLEL_BFS;
+        if (statistics.getWallDensity() >= DENSE_WALL_DENSITY)
+            return Algorithm.BIDIRECTIONAL;
+        if (statistics.getWallDensity() <= OPEN_WALL_DENSITY)
+            return Algorithm.JUMP_POINT;
+        return Algorithm.BUCKET_A_STAR;
+    }
+}
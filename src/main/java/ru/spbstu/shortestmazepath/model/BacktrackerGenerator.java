@@ -0,0 +1,41 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates mazes with the recursive backtracker: a depth-first search stepping to a random unvisited room
+ * and going back when there is none. The mazes have long winding corridors and few dead ends.
+ * <p>
+ * The search is iterative. Instead of a stack, every room remembers the direction back to the room it was
+ * entered from in two bits, so the memory used is a fraction of the maze itself whatever the depth of the search.
+ */
+class BacktrackerGenerator extends PerfectMazeGenerator {
+
+    @Override
+    void carve(SplittableRandom random) {
+        long[] back = newDirections(rooms);
+        int[] candidates = new int[DIRECTIONS];
+        int current = 0;
+        carveRoom(current);
+        while (true) {
+            int count = 0;
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                final int neighbour = neighbour(current, direction);
+                if (neighbour >= 0 && !isCarved(neighbour))
+                    candidates[count++] = direction;
+            }
+            if (count > 0) {
+                final int direction = candidates[random.nextInt(count)];
+                final int next = neighbour(current, direction);
+                carvePassage(current, direction);
+                carveRoom(next);
+                setDirection(back, next, direction ^ 1);
+                current = next;
+            } else if (current == 0) {
+                return;
+            } else {
+                current = neighbour(current, getDirection(back, current));
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.List;
+
+/**
+ * Finds the shortest path with a plain breadth-first search.
+ * It does no priority bookkeeping at all, which makes it the fastest engine for small and dense mazes.
+ */
+class BfsSolver implements MazeSolver {
+
+    @Override
+    public List<Cell> solve(Maze maze, SearchMonitor monitor) throws IllegalArgumentException {
+        final int start = maze.getStartIndex();
+        final int end = maze.getEndIndex();
+        if (start == Maze.NO_CELL || end == Maze.NO_CELL)
+            throw new IllegalArgumentException("Both start and end points must be set!");
+        final int size = maze.getWidth() * maze.getHeight();
+
+        int[] cameFrom = new int[size];
+        long[] visited = new long[Maze.wordCount(maze.getHeight(), maze.getWidth())];
+        int[] queue = new int[size];
+        int[] neighbours = new int[4];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        monitor.generated(1);
+        Maze.setBit(visited, start);
+        while (head < tail) {
+            final int current = queue[head++];
+            monitor.expanded();
+            if (current == end)
+                return maze.tracePath(cameFrom, start, end);
+            final int count = maze.neighbours(current, neighbours);
+            for (int i = 0; i < count; i++) {
+                final int neighbour = neighbours[i];
+                if (Maze.testBit(visited, neighbour))
+                    continue;
+                Maze.setBit(visited, neighbour);
+                cameFrom[neighbour] = current;
+                queue[tail++] = neighbour;
+                monitor.generated(tail - head);
+            }
+        }
+        throw new IllegalArgumentException("No path between start and end point exists!");
+    }
+}
@@ -0,0 +1,116 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the shortest path with two breadth-first searches growing from the start and from the end point.
+ * The searches expand whole levels, always advancing the smaller frontier. Once a level touches the other
+ * search, the rest of that level is still expanded so the shortest of all the meeting points is chosen.
+ */
+class BidirectionalSolver implements MazeSolver {
+
+    @Override
+    public List<Cell> solve(Maze maze, SearchMonitor monitor) throws IllegalArgumentException {
+        final int start = maze.getStartIndex();
+        final int end = maze.getEndIndex();
+        if (start == Maze.NO_CELL || end == Maze.NO_CELL)
+            throw new IllegalArgumentException("Both start and end points must be set!");
+        if (start == end)
+            return List.of(maze.cellAt(start));
+        final int size = maze.getWidth() * maze.getHeight();
+
+        Search forward = new Search(size, start);
+        Search backward = new Search(size, end);
+        monitor.generated(2, 2);
+        int[] neighbours = new int[4];
+        int bestLength = Integer.MAX_VALUE;
+        int meetFrom = Maze.NO_CELL;
+        int meetTo = Maze.NO_CELL;
+        while (forward.frontierSize > 0 && backward.frontierSize > 0) {
+            final boolean isForward = forward.frontierSize <= backward.frontierSize;
+            Search search = isForward ? forward : backward;
+            Search other = isForward ? backward : forward;
+            search.startLevel();
+            for (int i = 0; i < search.frontierSize; i++) {
+                final int current = search.frontier[i];
+                monitor.expanded();
+                final int count = maze.neighbours(current, neighbours);
+                for (int k = 0; k < count; k++) {
+                    final int neighbour = neighbours[k];
+                    if (other.distance[neighbour] >= 0) {
+                        final int length = search.distance[current] + 1 + other.distance[neighbour];
+                        if (length < bestLength) {
+                            bestLength = length;
+                            meetFrom = isForward ? current : neighbour;
+                            meetTo = isForward ? neighbour : current;
+                        }
+                    }
+                    if (search.distance[neighbour] < 0) {
+                        search.visit(neighbour, current);
+                        // The rest of this level, the next one and the other search's frontier
+                        monitor.generated(search.frontierSize - i - 1 + search.nextSize + other.frontierSize);
+                    }
+                }
+            }
+            if (meetFrom != Maze.NO_CELL)
+                return joinPaths(maze, forward, backward, meetFrom, meetTo, bestLength + 1);
+            search.finishLevel();
+        }
+        throw new IllegalArgumentException("No path between start and end point exists!");
+    }
+
+    /**
+     * Builds the path from the start to meetFrom, then from meetTo to the end.
+     */
+    private static List<Cell> joinPaths(Maze maze, Search forward, Search backward, int meetFrom, int meetTo,
+                                        int length) {
+        Cell[] path = new Cell[length];
+        int i = forward.distance[meetFrom];
+        for (int current = meetFrom; i >= 0; current = forward.cameFrom[current])
+            path[i--] = maze.cellAt(current);
+        i = forward.distance[meetFrom] + 1;
+        for (int current = meetTo; i < length; current = backward.cameFrom[current])
+            path[i++] = maze.cellAt(current);
+        return Arrays.asList(path);
+    }
+
+    /**
+     * State of one of the two searches.
+     */
+    private static class Search {
+        private final int[] distance;
+        private final int[] cameFrom;
+        private int[] frontier = new int[64];
+        private int frontierSize = 0;
+        private int[] next = new int[64];
+        private int nextSize = 0;
+
+        private Search(int size, int origin) {
+            distance = new int[size];
+            Arrays.fill(distance, -1);
+            cameFrom = new int[size];
+            distance[origin] = 0;
+            frontier[frontierSize++] = origin;
+        }
+
+        private void startLevel() {
+            nextSize = 0;
+        }
+
+        private void visit(int cell, int from) {
+            distance[cell] = distance[from] + 1;
+            cameFrom[cell] = from;
+            if (nextSize == next.length)
+                next = Arrays.copyOf(next, nextSize * 2);
+            next[nextSize++] = cell;
+        }
+
+        private void finishLevel() {
+            int[] swap = frontier;
+            frontier = next;
+            frontierSize = nextSize;
+            next = swap;
+        }
+    }
+}
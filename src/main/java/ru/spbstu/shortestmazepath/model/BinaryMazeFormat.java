@@ -0,0 +1,125 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The binary maze format. All numbers are little-endian:
+ * <pre>
+ * "MAZB" | version: int | height: int | width: int | start index: int | end index: int
+ * wall bitmap: ceil(height * width / 64) longs, the same layout as {@link Maze} keeps in memory
+ * terrain (version 2 only): height * width bytes, the extra cost of a move into every cell
+ * </pre>
+ * The start and end indices are -1 when the point is not set. The extra cost is 0 for plain cells, 2 for mud
+ * and 4 for doors. Mazes without terrain are saved as version 1.
+ * <p>
+ * Loading maps only the wall bitmap and reads it through a {@link java.nio.LongBuffer} view with a single bulk get
+ * straight into the array the maze keeps, so the bitmap is copied once and never held twice on the heap.
+ * The loaded maze lives on the heap: it is not backed by the file, and later changes of either do not affect
+ * the other.
+ */
+class BinaryMazeFormat {
+
+    static final byte[] MAGIC = "MAZB".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int TERRAIN_VERSION = 2;
+    private static final int HEADER_SIZE = 24;
+
+    static void save(Maze maze, File outputFile) throws IOException {
+        final long[] walls = maze.getWalls();
+        final byte[] terrain = maze.getTerrain();
+        final int words = Maze.wordCount(maze.getHeight(), maze.getWidth());
+        final long wallsEnd = HEADER_SIZE + (long) words * Long.BYTES;
+        try (FileChannel channel = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    wallsEnd + ((terrain != null) ? terrain.length : 0));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(MAGIC);
+            buffer.putInt((terrain != null) ? TERRAIN_VERSION : VERSION);
+            buffer.putInt(maze.getHeight());
+            buffer.putInt(maze.getWidth());
+            buffer.putInt(maze.getStartIndex());
+            buffer.putInt(maze.getEndIndex());
+            buffer.asLongBuffer().put(walls, 0, words);
+            if (terrain != null)
+                buffer.position((int) wallsEnd).put(terrain);
+            buffer.force();
+        }
+    }
+
+    static Maze load(File inputFile) throws IOException, IllegalArgumentException {
+        try (FileChannel channel = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE)
+                throw new IllegalArgumentException("File is not formatted properly");
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, buffer, 0);
+            buffer.flip();
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            if (!ByteBuffer.wrap(magic).equals(ByteBuffer.wrap(MAGIC)))
+                throw new IllegalArgumentException("File is not formatted properly");
+            final int version = buffer.getInt();
+            if (version != VERSION && version != TERRAIN_VERSION)
+                throw new IllegalArgumentException("Unsupported maze file version: " + version);
+            final int height = buffer.getInt();
+            final int width = buffer.getInt();
+            MazeLimits.check(height, width);
+            final int start = buffer.getInt();
+            final int end = buffer.getInt();
+
+            final int words = Maze.wordCount(height, width);
+            final int size = height * width;
+            final long wallsEnd = HEADER_SIZE + (long) words * Long.BYTES;
+            if (fileSize != wallsEnd + ((version == TERRAIN_VERSION) ? size : 0))
+                throw new IllegalArgumentException("Maze does not match the specified size");
+            long[] walls = new long[words];
+            channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, wallsEnd - HEADER_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(walls);
+            byte[] terrain = null;
+            if (version == TERRAIN_VERSION) {
+                terrain = new byte[size];
+                readFully(channel, ByteBuffer.wrap(terrain), wallsEnd);
+            }
+            if (size % 64 != 0)
+                walls[words - 1] &= (1L << size) - 1; // bits past the last cell must stay clear for equals()
+            checkPoints(start, end, size, walls);
+            return new Maze(height, width, start, end, walls, terrain);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position);
+            if (read < 0)
+                throw new IllegalArgumentException("File is not formatted properly");
+            position += read;
+        }
+    }
+
+    /**
+     * Checks the start and end indices read from a file point to distinct open cells, if set.
+     *
+     * @throws IllegalArgumentException if they do not.
+     */
+    static void checkPoints(int start, int end, int size, long[] walls) {
+        checkPoint(start, size, walls, "start");
+        checkPoint(end, size, walls, "end");
+        if (start == end && start != Maze.NO_CELL)
+            throw new IllegalArgumentException("Start and end cells must differ");
+    }
+
+    private static void checkPoint(int index, int size, long[] walls, String name) {
+        if (index == Maze.NO_CELL)
+            return;
+        if (index < 0 || index >= size || Maze.testBit(walls, index))
+            throw new IllegalArgumentException("Incorrect " + name + " cell: " + index);
+    }
+}
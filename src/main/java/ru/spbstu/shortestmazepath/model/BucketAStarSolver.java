@@ -0,0 +1,103 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the shortest path using the A* algorithm with the Manhattan distance heuristic and a bucket queue
+ * (Dial's algorithm) as the open set.
+ * <p>
+ * With unit moves in four directions the Manhattan distance is admissible and consistent, and every move changes
+ * the f-score by either 0 or 2. So the open set only ever holds cells of two f-scores: the current one and the next
+ * one. Each of the two layers is an array of stacks indexed by the heuristic, and the stack with the smallest
+ * heuristic, i.e. the largest cost, is taken first, which breaks ties towards the end point. Both adding and taking
+ * a cell are constant time, and no floating point is involved.
+ * <p>
+ * A cell whose cost improves is not removed from the stack it is already in: it is pushed again, and the outdated
+ * entry is skipped as a visited cell when taken. A cell is in each layer at most once, so the stacks are linked
+ * through an array indexed by cells.
+ */
+class BucketAStarSolver implements MazeSolver {
+
+    private static final int EMPTY = -1;
+
+    @Override
+    public List<Cell> solve(Maze maze, SearchMonitor monitor) throws IllegalArgumentException {
+        final int start = maze.getStartIndex();
+        final int end = maze.getEndIndex();
+        if (start == Maze.NO_CELL || end == Maze.NO_CELL)
+            throw new IllegalArgumentException("Both start and end points must be set!");
+        final int width = maze.getWidth();
+        final int endX = end % width;
+        final int endY = end / width;
+        final int size = width * maze.getHeight();
+        final int buckets = width + maze.getHeight() - 1; // the heuristic is always less than that
+
+        int[] cost = new int[size]; // the cost of the cheapest path from start to a cell
+        Arrays.fill(cost, Integer.MAX_VALUE);
+        int[] cameFrom = new int[size];
+        long[] visited = new long[Maze.wordCount(maze.getHeight(), width)];
+        int[][] heads = new int[2][buckets]; // the top cell of every stack of both layers
+        Arrays.fill(heads[0], EMPTY);
+        Arrays.fill(heads[1], EMPTY);
+        int[][] next = new int[2][size]; // the cell below in the same stack
+        int[] lowest = {buckets, buckets}; // no stack of a layer below this heuristic has cells
+        int[] counts = new int[2];
+        int[] neighbours = new int[4];
+
+        int layer = 0;
+        int startHeuristic = Math.abs(start % width - endX) + Math.abs(start / width - endY);
+        cost[start] = 0;
+        push(heads[layer], next[layer], start, startHeuristic);
+        lowest[layer] = startHeuristic;
+        counts[layer] = 1;
+        monitor.generated(1);
+        while (true) {
+            if (counts[layer] == 0) {
+                lowest[layer] = buckets;
+                layer ^= 1; // all cells of the current f-score are expanded, proceed to the next one
+                if (counts[layer] == 0)
+                    break;
+            }
+            int[] layerHeads = heads[layer];
+            int heuristic = lowest[layer];
+            while (layerHeads[heuristic] == EMPTY)
+                heuristic++;
+            lowest[layer] = heuristic;
+            final int current = layerHeads[heuristic];
+            layerHeads[heuristic] = next[layer][current];
+            counts[layer]--;
+            if (Maze.testBit(visited, current))
+                continue;
+            monitor.expanded();
+            if (current == end)
+                return maze.tracePath(cameFrom, start, end);
+            Maze.setBit(visited, current);
+            final int score = cost[current] + 1;
+            final int count = maze.neighbours(current, neighbours);
+            for (int i = 0; i < count; i++) {
+                final int neighbour = neighbours[i];
+                if (Maze.testBit(visited, neighbour) || score >= cost[neighbour])
+                    continue;
+                final boolean isNew = cost[neighbour] == Integer.MAX_VALUE;
+                cost[neighbour] = score;
+                cameFrom[neighbour] = current;
+                final int neighbourHeuristic = Math.abs(neighbour % width - endX) + Math.abs(neighbour / width - endY);
+                // Moving towards the end point keeps the f-score, moving away increases it by 2
+                final int target = (neighbourHeuristic < heuristic) ? layer : layer ^ 1;
+                push(heads[target], next[target], neighbour, neighbourHeuristic);
+                if (neighbourHeuristic < lowest[target])
+                    lowest[target] = neighbourHeuristic;
+                counts[target]++;
+                if (isNew)
+                    monitor.generated(counts[0] + counts[1]);
+            }
+        }
+        throw new IllegalArgumentException("No path between start and end point exists!");
+    }
+
+    private static void push(int[] heads, int[] next, int cell, int heuristic) {
+        next[cell] = heads[heuristic];
+        heads[heuristic] = cell;
+    }
+}
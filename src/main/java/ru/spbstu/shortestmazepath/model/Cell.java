@@ -15,7 +15,20 @@ public class Cell {
     }
 
     public enum Type {
-        PATH, WALL, START, END;
+        PATH(1), WALL(0), START(1), END(1), MUD(3), DOOR(5);
+
+        private final int cost;
+
+        Type(int cost) {
+            this.cost = cost;
+        }
+
+        /**
+         * @return the cost of a move into a cell of this type, 0 for walls, which cannot be entered.
+         */
+        public int getCost() {
+            return cost;
+        }
 
         @Override
         public String toString() {
@@ -28,6 +41,10 @@ public class Cell {
                     return "S";
                 case END:
                     return "E";
+                case MUD:
+                    return "~";
+                case DOOR:
+                    return "+";
                 default:
                     throw new IllegalStateException("Unexpected value: " + this);
             }
@@ -0,0 +1,133 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * The run-length encoded maze format. The header is written with {@link DataOutputStream}:
+ * <pre>
+ * "MAZR" | version: int | height: int | width: int | start index: int | end index: int
+ * </pre>
+ * It is followed by the rows of the maze, each one encoded as a sequence of runs of equal cells adding up
+ * to the maze width. A run is a single unsigned 64-bit LEB128 varint: (length &lt;&lt; 2) | kind, where kind is
+ * 0 for path cells (including the start and end points), 1 for walls, 2 for mud and 3 for doors.
+ * Rows are decoded straight into the wall bitmap, a whole run at a time. Mazes without terrain are encoded
+ * from the bitmap alone, skipping whole runs of equal bits.
+ */
+class CompressedMazeFormat {
+
+    static final byte[] MAGIC = "MAZR".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int KIND_BITS = 2;
+    private static final int KIND_PATH = 0;
+    private static final int KIND_WALL = 1;
+    private static final int KIND_MUD = 2;
+    private static final int KIND_DOOR = 3;
+
+    static void save(Maze maze, File outputFile) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(outputFile.toPath())))) {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(maze.getHeight());
+            out.writeInt(maze.getWidth());
+            out.writeInt(maze.getStartIndex());
+            out.writeInt(maze.getEndIndex());
+            final long[] walls = maze.getWalls();
+            final byte[] terrain = maze.getTerrain();
+            final int width = maze.getWidth();
+            for (int row = 0; row < maze.getHeight(); row++) {
+                final int rowEnd = (row + 1) * width;
+                int from = row * width;
+                while (from < rowEnd) {
+                    final int kind = kindAt(walls, terrain, from);
+                    int to;
+                    if (terrain == null) {
+                        to = Maze.nextBit(walls, from, rowEnd, kind != KIND_WALL);
+                    } else {
+                        to = from + 1;
+                        while (to < rowEnd && kindAt(walls, terrain, to) == kind)
+                            to++;
+                    }
+                    writeVarint(out, ((long) (to - from) << KIND_BITS) | kind);
+                    from = to;
+                }
+            }
+        }
+    }
+
+    private static int kindAt(long[] walls, byte[] terrain, int index) {
+        if (Maze.testBit(walls, index))
+            return KIND_WALL;
+        if (terrain == null || terrain[index] == 0)
+            return KIND_PATH;
+        return (Maze.terrainType(terrain[index]) == Cell.Type.MUD) ? KIND_MUD : KIND_DOOR;
+    }
+
+    static Maze load(File inputFile) throws IOException, IllegalArgumentException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(inputFile.toPath())))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC))
+                throw new IllegalArgumentException("Not a compressed maze file");
+            final int version = in.readInt();
+            if (version != VERSION)
+                throw new IllegalArgumentException("Unsupported maze file version: " + version);
+            final int height = in.readInt();
+            final int width = in.readInt();
+            MazeLimits.check(height, width);
+            final int start = in.readInt();
+            final int end = in.readInt();
+
+            long[] walls = new long[Maze.wordCount(height, width)];
+            byte[] terrain = null;
+            for (int row = 0; row < height; row++) {
+                final int rowEnd = (row + 1) * width;
+                int from = row * width;
+                while (from < rowEnd) {
+                    final long run = readVarint(in);
+                    final long runLength = run >>> KIND_BITS;
+                    final int kind = (int) run & ((1 << KIND_BITS) - 1);
+                    if (runLength == 0 || runLength > rowEnd - from)
+                        throw new IllegalArgumentException("Maze does not match the specified size");
+                    final int length = (int) runLength;
+                    if (kind == KIND_WALL) {
+                        Maze.setBits(walls, from, from + length);
+                    } else if (kind != KIND_PATH) {
+                        if (terrain == null)
+                            terrain = new byte[height * width];
+                        final Cell.Type type = (kind == KIND_MUD) ? Cell.Type.MUD : Cell.Type.DOOR;
+                        Arrays.fill(terrain, from, from + length, (byte) (type.getCost() - 1));
+                    }
+                    from += length;
+                }
+            }
+            if (in.read() != -1)
+                throw new IllegalArgumentException("Maze does not match the specified size");
+            BinaryMazeFormat.checkPoints(start, end, height * width, walls);
+            return new Maze(height, width, start, end, walls, terrain);
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("File is not formatted properly");
+        }
+    }
+
+    private static void writeVarint(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarint(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            final byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IllegalArgumentException("File is not formatted properly");
+    }
+}
@@ -0,0 +1,201 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.Arrays;
+
+/**
+ * Connected components of the non-wall cells of a maze. Every cell stores the label of its component,
+ * so two cells are checked for connectivity in constant time.
+ * A label is the index of one of the component cells, which keeps the labels unique without any counter.
+ * <p>
+ * Opening a cell merges the components around it, relabelling all of them but the largest one. Closing a cell
+ * may split its component, so the cells around it are relabelled with flood fills, unless they stay connected
+ * through the eight cells surrounding the closed one and the closed cell is not the label of its component.
+ * <p>
+ * The index takes two ints per cell, so the maze only builds it on demand.
+ */
+class ConnectivityIndex {
+
+    private static final int WALL = -1;
+    /**
+     * The offsets of the cells around a cell, clockwise from the north side: every side is followed by a corner.
+     */
+    private static final int[] RING_X = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] RING_Y = {-1, -1, 0, 1, 1, 1, 0, -1};
+
+    private final Maze maze;
+    private final int[] label;
+    /**
+     * The number of cells in a component, indexed by its label. Zero for the indices which are not labels.
+     */
+    private final int[] size;
+    private final int[] neighbours = new int[4];
+    private int[] queue = new int[64];
+    private long[] marks;
+
+    ConnectivityIndex(Maze maze) {
+        this.maze = maze;
+        final int width = maze.getWidth();
+        final int cells = width * maze.getHeight();
+        label = new int[cells];
+        size = new int[cells];
+        for (int i = 0; i < cells; i++) { // union-find over the labels, the root being the smallest index of a tree
+            if (maze.isWall(i)) {
+                label[i] = WALL;
+                continue;
+            }
+            label[i] = i;
+            if (i % width > 0 && label[i - 1] != WALL)
+                union(i - 1, i);
+            if (i >= width && label[i - width] != WALL)
+                union(i - width, i);
+        }
+        for (int i = 0; i < cells; i++) { // parents precede their children, so one pass flattens the forest
+            if (label[i] != WALL) {
+                label[i] = label[label[i]];
+                size[label[i]]++;
+            }
+        }
+    }
+
+    /**
+     * Checks whether there is a path between two cells.
+     */
+    boolean connected(int a, int b) {
+        return label[a] != WALL && label[a] == label[b];
+    }
+
+    /**
+     * Updates the index after the cell stopped being a wall.
+     */
+    void cellOpened(int index) {
+        final int count = maze.neighbours(index, neighbours);
+        int largest = index;
+        for (int i = 0; i < count; i++) {
+            final int neighbourLabel = label[neighbours[i]];
+            if (largest == index || size[neighbourLabel] > size[largest])
+                largest = neighbourLabel;
+        }
+        label[index] = largest;
+        size[largest]++;
+        int[] around = Arrays.copyOf(neighbours, count);
+        for (int i = 0; i < count; i++) {
+            final int oldLabel = label[around[i]];
+            if (oldLabel == largest)
+                continue;
+            size[oldLabel] = 0;
+            final int filled = fill(around[i], oldLabel, largest, 0);
+            clearMarks(filled);
+            size[largest] += filled;
+        }
+    }
+
+    /**
+     * Updates the index after the cell became a wall.
+     */
+    void cellClosed(int index) {
+        final int oldLabel = label[index];
+        label[index] = WALL;
+        size[oldLabel]--;
+        final int count = maze.neighbours(index, neighbours);
+        if (count == 0 || oldLabel != index && (count == 1 || staysConnectedAround(index)))
+            return; // the component is not split, and its label is kept
+        int[] around = Arrays.copyOf(neighbours, count);
+        size[oldLabel] = 0;
+        int marked = 0;
+        for (int i = 0; i < count; i++) {
+            final int neighbour = around[i];
+            if (marks != null && Maze.testBit(marks, neighbour))
+                continue;
+            final int filled = fill(neighbour, oldLabel, neighbour, marked);
+            size[neighbour] = filled - marked;
+            marked = filled;
+        }
+        clearMarks(marked);
+    }
+
+    /**
+     * Checks whether the open cells adjacent to the closed one are still connected through its eight surrounding
+     * cells. Walking around the ring, every open side cell either starts a new group or joins the previous side
+     * through the open corner between them.
+     */
+    private boolean staysConnectedAround(int index) {
+        final int width = maze.getWidth();
+        final int x = index % width;
+        final int y = index / width;
+        int groups = 0;
+        for (int side = 0; side < 8; side += 2) {
+            if (!isOpen(x + RING_X[side], y + RING_Y[side]))
+                continue;
+            final int corner = (side + 7) % 8;
+            final int previous = (side + 6) % 8;
+            if (!isOpen(x + RING_X[corner], y + RING_Y[corner]) || !isOpen(x + RING_X[previous], y + RING_Y[previous]))
+                groups++;
+        }
+        return groups <= 1;
+    }
+
+    private boolean isOpen(int x, int y) {
+        return x >= 0 && y >= 0 && x < maze.getWidth() && y < maze.getHeight()
+                && label[y * maze.getWidth() + x] != WALL;
+    }
+
+    /**
+     * Relabels every cell having the old label and reachable from the specified one.
+     * The cells are marked and appended to the queue.
+     *
+     * @param marked the number of cells already stored in the queue by the current update.
+     * @return the number of cells in the queue after the flood fill.
+     */
+    private int fill(int cell, int oldLabel, int newLabel, int marked) {
+        if (marks == null)
+            marks = new long[Maze.wordCount(1, label.length)];
+        int head = marked;
+        int tail = marked;
+        queue = ensureCapacity(queue, tail + 1);
+        queue[tail++] = cell;
+        Maze.setBit(marks, cell);
+        while (head < tail) {
+            final int current = queue[head++];
+            label[current] = newLabel;
+            final int count = maze.neighbours(current, neighbours);
+            for (int i = 0; i < count; i++) {
+                final int neighbour = neighbours[i];
+                if (label[neighbour] != oldLabel || Maze.testBit(marks, neighbour))
+                    continue;
+                Maze.setBit(marks, neighbour);
+                queue = ensureCapacity(queue, tail + 1);
+                queue[tail++] = neighbour;
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Clears the marks of the first cells stored in the queue.
+     */
+    private void clearMarks(int count) {
+        for (int i = 0; i < count; i++)
+            marks[queue[i] >>> 6] = 0;
+    }
+
+    private static int[] ensureCapacity(int[] array, int capacity) {
+        return (capacity <= array.length) ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+
+    private int find(int index) {
+        while (label[index] != index) {
+            label[index] = label[label[index]]; // path halving
+            index = label[index];
+        }
+        return index;
+    }
+
+    private void union(int a, int b) {
+        final int rootA = find(a);
+        final int rootB = find(b);
+        if (rootA < rootB)
+            label[rootB] = rootA;
+        else if (rootB < rootA)
+            label[rootA] = rootB;
+    }
+}
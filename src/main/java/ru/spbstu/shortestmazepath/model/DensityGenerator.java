@@ -0,0 +1,142 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates mazes making every cell a wall with the specified probability, like {@link Maze#random(int, int, java.util.Random)},
+ * but filling the wall bitmap on the fork-join pool.
+ * <p>
+ * The bitmap is split into bands of {@value #BAND_WORDS} consecutive words. The cells are stored row by row, so a band
+ * covers a run of cells that may start and end in the middle of a row, but no two bands share a word. Every band is filled by its own task with its own {@link SplittableRandom}, split from the seeded one
+ * in the order of the bands. Neither the bands nor their generators depend on the number of threads, so a seed
+ * always gives the same maze.
+ * <p>
+ * The walls are drawn a whole word at a time: a word with every bit set with the probability of 1/2 is a single random
+ * long, and other probabilities are built bit by bit of their binary fraction by combining such words with AND and OR.
+ * The density is rounded to a multiple of 2<sup>-{@value #DENSITY_BITS}</sup> for that.
+ */
+public class DensityGenerator implements MazeGenerator {
+
+    /**
+     * The number of bitmap words a single task fills.
+     */
+    static final int BAND_WORDS = 4096;
+    private static final int DENSITY_BITS = 16;
+
+    private final double density;
+    private final boolean connected;
+    private final int bandWords;
+
+    /**
+     * @param density   the probability of a cell being a wall.
+     * @param connected whether to carve a corridor from the start point to the end point, so that a path always exists.
+     * @throws IllegalArgumentException if the density is not between 0 and 1.
+     */
+    public DensityGenerator(double density, boolean connected) throws IllegalArgumentException {
+        this(density, connected, BAND_WORDS);
+    }
+
+    /**
+     * @param bandWords the number of bitmap words a single task fills.
+     */
+    DensityGenerator(double density, boolean connected, int bandWords) throws IllegalArgumentException {
+        if (!(density >= 0 && density <= 1))
+            throw new IllegalArgumentException("Wall density must be between 0 and 1");
+        this.density = density;
+        this.connected = connected;
+        this.bandWords = bandWords;
+    }
+
+    @Override
+    public Maze generate(int height, int width, long seed) throws IllegalArgumentException {
+        MazeLimits.check(height, width);
+        final int size = height * width;
+        if (size < 2)
+            throw new IllegalArgumentException("The maze must have room for both start and end points");
+
+        SplittableRandom random = new SplittableRandom(seed);
+        final int start = random.nextInt(size);
+        int end = random.nextInt(size);
+        while (end == start)
+            end = random.nextInt(size);
+
+        long[] walls = new long[Maze.wordCount(height, width)];
+        final long fraction = Math.round(density * (1L << DENSITY_BITS));
+        Band[] bands = new Band[(walls.length + bandWords - 1) / bandWords];
+        for (int i = 0; i < bands.length; i++) {
+            final int from = i * bandWords;
+            bands[i] = new Band(walls, fraction, random.split(), from, Math.min(from + bandWords, walls.length));
+        }
+        if (bands.length == 1)
+            bands[0].compute();
+        else
+            ForkJoinTask.invokeAll(bands);
+
+        // The bits past the last cell must stay clear
+        if ((size & 63) != 0)
+            walls[walls.length - 1] &= -1L >>> -size;
+        Maze.clearBit(walls, start);
+        Maze.clearBit(walls, end);
+        if (connected)
+            carveCorridor(walls, width, start, end);
+        return new Maze(height, width, start, end, walls);
+    }
+
+    /**
+     * Clears the cells along the start point row up to the end point column and then along that column.
+     */
+    private static void carveCorridor(long[] walls, int width, int start, int end) {
+        final int startX = start % width;
+        final int endX = end % width;
+        final int row = start / width * width;
+        for (int x = Math.min(startX, endX); x <= Math.max(startX, endX); x++)
+            Maze.clearBit(walls, row + x);
+        final int step = (end > row + endX) ? width : -width;
+        for (int index = row + endX; index != end; index += step)
+            Maze.clearBit(walls, index);
+    }
+
+    /**
+     * Fills a band of the wall bitmap.
+     */
+    private static class Band extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] walls;
+        private final long fraction;
+        private final SplittableRandom random;
+        private final int from;
+        private final int to;
+
+        private Band(long[] walls, long fraction, SplittableRandom random, int from, int to) {
+            this.walls = walls;
+            this.fraction = fraction;
+            this.random = random;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (fraction == 0)
+                return;
+            if (fraction >= 1L << DENSITY_BITS) {
+                for (int i = from; i < to; i++)
+                    walls[i] = -1L;
+                return;
+            }
+            final int lowest = Long.numberOfTrailingZeros(fraction);
+            for (int i = from; i < to; i++) {
+                // Going from the lowest bit of the fraction up, each step halves the probability and adds 1/2 if set
+                long word = 0;
+                for (int bit = lowest; bit < DENSITY_BITS; bit++) {
+                    final long bits = random.nextLong();
+                    word = ((fraction >>> bit & 1) != 0) ? word | bits : word & bits;
+                }
+                walls[i] = word;
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Costs of the cheapest paths from every cell of a maze to its end point, a move costing as much as the cell
+ * it enters. Without terrain the cost is the number of steps, found with a single breadth-first search from the end;
+ * with terrain the search from the end is Dijkstra's algorithm over a {@link RadixHeap}.
+ * The cheapest path from any cell is then read by stepping to a neighbour whose cost is lower by the cost
+ * of entering it, taking time proportional to the path length.
+ * <p>
+ * A field describes the maze at the moment it was computed. Use {@link Maze#getDistanceField()} to get a field
+ * which is rebuilt whenever the maze changes.
+ */
+public class DistanceField {
+
+    private static final int UNREACHABLE = -1;
+
+    private final Maze maze;
+    private final int end;
+    private final int modCount;
+    private final int[] distance;
+
+    /**
+     * @throws IllegalArgumentException if the end point is not set.
+     * @throws ArithmeticException      if the path costs may overflow an int, see {@link MazeLimits#checkPathCosts}.
+     */
+    DistanceField(Maze maze) throws IllegalArgumentException {
+        this.maze = maze;
+        this.end = maze.getEndIndex();
+        this.modCount = maze.getModCount();
+        if (end == Maze.NO_CELL)
+            throw new IllegalArgumentException("End point must be set!");
+        final int size = maze.getWidth() * maze.getHeight();
+
+        distance = new int[size];
+        Arrays.fill(distance, UNREACHABLE);
+        if (maze.hasTerrain()) {
+            MazeLimits.checkPathCosts(maze);
+            computeCosts();
+            return;
+        }
+        int[] queue = new int[size];
+        int[] neighbours = new int[4];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = end;
+        distance[end] = 0;
+        while (head < tail) {
+            final int current = queue[head++];
+            final int count = maze.neighbours(current, neighbours);
+            for (int i = 0; i < count; i++) {
+                final int neighbour = neighbours[i];
+                if (distance[neighbour] != UNREACHABLE)
+                    continue;
+                distance[neighbour] = distance[current] + 1;
+                queue[tail++] = neighbour;
+            }
+        }
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the end point. Every move into a cell costs the same whichever neighbour
+     * it comes from, so a cell taken from the heap passes a single cost on to all its neighbours.
+     */
+    private void computeCosts() {
+        RadixHeap toVisit = new RadixHeap();
+        int[] neighbours = new int[4];
+        distance[end] = 0;
+        toVisit.add(end, 0);
+        while (!toVisit.isEmpty()) {
+            final int current = toVisit.poll();
+            if (toVisit.lastPriority() != distance[current])
+                continue; // an outdated copy of a cell whose cost has improved since
+            final int score = distance[current] + maze.costAt(current);
+            final int count = maze.neighbours(current, neighbours);
+            for (int i = 0; i < count; i++) {
+                final int neighbour = neighbours[i];
+                if (distance[neighbour] != UNREACHABLE && distance[neighbour] <= score)
+                    continue;
+                distance[neighbour] = score;
+                toVisit.add(neighbour, score);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the field still describes the maze, i.e. no wall or terrain has changed and the end point
+     * has not moved.
+     */
+    public boolean isValid() {
+        return maze.getModCount() == modCount && maze.getEndIndex() == end;
+    }
+
+    /**
+     * Finds the cost of the cheapest path from the specified cell to the end point.
+     *
+     * @return the cost of the path, which is the number of steps in a maze without terrain,
+     * or -1 if the end point cannot be reached.
+     * @throws IndexOutOfBoundsException if the position is outside the maze.
+     * @throws IllegalStateException     if the maze has changed since the field was computed.
+     */
+    public int distanceFrom(int x, int y) {
+        return distance[indexOf(x, y)];
+    }
+
+    /**
+     * Restores the cheapest path from the specified cell to the end point.
+     *
+     * @return a list containing all the cells included in the path, starting with the specified cell.
+     * @throws IllegalArgumentException  if the end point cannot be reached from the cell.
+     * @throws IndexOutOfBoundsException if the position is outside the maze.
+     * @throws IllegalStateException     if the maze has changed since the field was computed.
+     */
+    public List<Cell> pathFrom(int x, int y) throws IllegalArgumentException {
+        int current = indexOf(x, y);
+        if (distance[current] == UNREACHABLE)
+            throw new IllegalArgumentException("No path between start and end point exists!");
+        int[] neighbours = new int[4];
+        List<Cell> path = new ArrayList<>();
+        while (current != end) {
+            path.add(maze.cellAt(current));
+            final int count = maze.neighbours(current, neighbours);
+            for (int k = 0; k < count; k++) {
+                final int neighbour = neighbours[k];
+                if (distance[neighbour] != UNREACHABLE
+                        && distance[neighbour] + maze.costAt(neighbour) == distance[current]) {
+                    current = neighbour;
+                    break;
+                }
+            }
+        }
+        path.add(maze.cellAt(current));
+        return path;
+    }
+
+    private int indexOf(int x, int y) {
+        if (x < 0 || x >= maze.getWidth() || y < 0 || y >= maze.getHeight())
+            throw new IndexOutOfBoundsException("Cell (" + x + ", " + y + ") is outside the maze");
+        if (!isValid())
+            throw new IllegalStateException("The maze has changed since the distance field was computed");
+        return y * maze.getWidth() + x;
+    }
+}
@@ -0,0 +1,41 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.function.Supplier;
+
+/**
+ * Describes an algorithm mazes can be generated with.
+ */
+public enum Generator {
+    BACKTRACKER("Recursive backtracker", BacktrackerGenerator::new),
+    KRUSKAL("Kruskal's algorithm", KruskalGenerator::new),
+    WILSON("Wilson's algorithm", WilsonGenerator::new);
+
+    private final String title;
+    private final Supplier<MazeGenerator> factory;
+
+    Generator(String title, Supplier<MazeGenerator> factory) {
+        this.title = title;
+        this.factory = factory;
+    }
+
+    /**
+     * Creates a new engine implementing the algorithm.
+     */
+    public MazeGenerator getGenerator() {
+        return factory.get();
+    }
+
+    /**
+     * Creates a maze of the specified size with the algorithm.
+     *
+     * @see MazeGenerator#generate(int, int, long)
+     */
+    public Maze generate(int height, int width, long seed) throws IllegalArgumentException {
+        return getGenerator().generate(height, width, seed);
+    }
+
+    @Override
+    public String toString() {
+        return title;
+    }
+}
@@ -0,0 +1,501 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds paths in large mazes with Hierarchical Path-Finding A* (HPA*).
+ * <p>
+ * The maze is split into square clusters. Every maximal run of open cells along the border of two clusters gets
+ * one transition in its middle, or two at its ends if it is long. The cells of the transitions are the entrances
+ * of the clusters, and the distances between the entrances of every cluster are precomputed.
+ * A query then searches this abstract graph and refines only the clusters the abstract path goes through.
+ * Editing a cell through {@link #setType(int, int, Cell.Type)} rebuilds only the clusters around it. The planner
+ * the maze keeps for {@link Algorithm#HIERARCHICAL} is repaired the same way on every {@link Maze#setType} call.
+ * <p>
+ * The paths found are near-optimal rather than the shortest, as they are bound to go through the entrances.
+ * The planner can be used directly or through {@link Algorithm#HIERARCHICAL}, which has to be chosen explicitly,
+ * as {@link Algorithm#AUTO} only picks algorithms finding the shortest path. The terrain is not taken into account: every move costs the same.
+ */
+public class HierarchicalPlanner {
+
+    private static final int DEFAULT_CLUSTER_SIZE = 16;
+    /**
+     * Border runs of at least this length get a transition at each end instead of one in the middle.
+     */
+    private static final int LONG_RUN = 6;
+    private static final int INFINITY = Integer.MAX_VALUE / 4;
+
+    private final Maze maze;
+    private final int width;
+    private final int height;
+    private final int clusterSize;
+    private final int clustersX;
+    private final int clustersY;
+    /**
+     * The upper bound of the entrance count of a cluster, which makes cluster * slots + entrance a node identifier.
+     */
+    private final int slots;
+    /**
+     * Transitions to the right neighbour of every cluster, as pairs of cell indices (inside, outside).
+     */
+    private final int[][] eastTransitions;
+    /**
+     * Transitions to the upper neighbour of every cluster, as pairs of cell indices (inside, outside).
+     */
+    private final int[][] northTransitions;
+    private final int[][] entrances;
+    /**
+     * Distances between the entrances of every cluster inside the cluster, as a flattened square matrix.
+     */
+    private final int[][] distances;
+
+    private final int[] localDistance;
+    private final int[] localParent;
+    private final int[] localQueue;
+
+    /**
+     * The abstract search state, kept between the queries: the entrance nodes go first, then the start and the end.
+     * A node's cost and parent are only valid if its stamp equals the current generation, so a query resets
+     * the state in constant time instead of refilling arrays of the size of the whole graph.
+     */
+    private final int startNode;
+    private final int endNode;
+    private int[] nodeCost;
+    private int[] nodeParent;
+    private int[] nodeStamp;
+    private IndexedHeap toVisit;
+    private int generation = 0;
+
+    public HierarchicalPlanner(Maze maze) {
+        this(maze, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * @param clusterSize the side length of a cluster.
+     * @throws IllegalArgumentException if the cluster size is less than 2.
+     */
+    public HierarchicalPlanner(Maze maze, int clusterSize) {
+        if (clusterSize < 2)
+            throw new IllegalArgumentException("Cluster size must be at least 2");
+        this.maze = maze;
+        this.width = maze.getWidth();
+        this.height = maze.getHeight();
+        this.clusterSize = clusterSize;
+        this.clustersX = (width + clusterSize - 1) / clusterSize;
+        this.clustersY = (height + clusterSize - 1) / clusterSize;
+        this.slots = 4 * ((clusterSize + 1) / 2);
+        final int clusters = clustersX * clustersY;
+        eastTransitions = new int[clusters][];
+        northTransitions = new int[clusters][];
+        entrances = new int[clusters][];
+        distances = new int[clusters][];
+        localDistance = new int[clusterSize * clusterSize];
+        localParent = new int[clusterSize * clusterSize];
+        localQueue = new int[clusterSize * clusterSize];
+        startNode = Math.multiplyExact(clusters, slots);
+        endNode = Math.addExact(startNode, 1);
+
+        for (int cluster = 0; cluster < clusters; cluster++) {
+            eastTransitions[cluster] = findEastTransitions(cluster);
+            northTransitions[cluster] = findNorthTransitions(cluster);
+        }
+        for (int cluster = 0; cluster < clusters; cluster++)
+            connectEntrances(cluster);
+    }
+
+    public Maze getMaze() {
+        return maze;
+    }
+
+    /**
+     * Changes the type of the cell and rebuilds the clusters the change may affect.
+     *
+     * @throws IndexOutOfBoundsException if the position is outside the maze.
+     */
+    public void setType(int x, int y, Cell.Type type) {
+        final boolean wasWall = maze.isWall(x, y);
+        maze.setType(x, y, type);
+        // Start and end points are only attached to the graph during a query, and the maze repairs its own planner
+        if (wasWall != maze.isWall(x, y) && maze.peekHierarchicalPlanner() != this)
+            wallChanged(x, y);
+    }
+
+    /**
+     * Rebuilds the clusters the wall added or removed at the position may affect.
+     */
+    void wallChanged(int x, int y) {
+        final int cx = x / clusterSize;
+        final int cy = y / clusterSize;
+        final int cluster = cy * clustersX + cx;
+        final int localX = x - cx * clusterSize;
+        final int localY = y - cy * clusterSize;
+        if (localX == 0 && cx > 0) {
+            eastTransitions[cluster - 1] = findEastTransitions(cluster - 1);
+            connectEntrances(cluster - 1);
+        }
+        if (localX == clusterSize - 1 && cx + 1 < clustersX) {
+            eastTransitions[cluster] = findEastTransitions(cluster);
+            connectEntrances(cluster + 1);
+        }
+        if (localY == 0 && cy > 0) {
+            northTransitions[cluster - clustersX] = findNorthTransitions(cluster - clustersX);
+            connectEntrances(cluster - clustersX);
+        }
+        if (localY == clusterSize - 1 && cy + 1 < clustersY) {
+            northTransitions[cluster] = findNorthTransitions(cluster);
+            connectEntrances(cluster + clustersX);
+        }
+        connectEntrances(cluster);
+    }
+
+    /**
+     * Finds a path from the start point to the end point through the abstract graph.
+     *
+     * @return a list containing all the cells included in the path.
+     * @throws IllegalArgumentException if there is no path.
+     */
+    public List<Cell> solve() throws IllegalArgumentException {
+        return solve(new SearchMonitor());
+    }
+
+    /**
+     * Finds a path from the start point to the end point through the abstract graph.
+     *
+     * @param monitor the monitor the abstract search reports its progress to.
+     * @return a list containing all the cells included in the path.
+     * @throws IllegalArgumentException if there is no path.
+     */
+    public List<Cell> solve(SearchMonitor monitor) throws IllegalArgumentException {
+        final int start = maze.getStartIndex();
+        final int end = maze.getEndIndex();
+        if (start == Maze.NO_CELL || end == Maze.NO_CELL)
+            throw new IllegalArgumentException("Both start and end points must be set!");
+        if (maze.isKnownUnreachable())
+            throw new IllegalArgumentException("No path between start and end point exists!");
+        if (start == end)
+            return List.of(maze.cellAt(start));
+        final int startCluster = clusterOf(start);
+        final int endCluster = clusterOf(end);
+
+        // Attach the start and the end points to the entrances of their clusters
+        int[] startDistances = entranceDistances(startCluster, start);
+        final int direct = (startCluster == endCluster) ? localDistance[localIndex(end)] : -1;
+        int[] endDistances = entranceDistances(endCluster, end);
+
+        resetSearch();
+        setCost(startNode, 0, startNode);
+        toVisit.add(startNode, priority(start, 0, end));
+        monitor.generated(1);
+        int queued = 1;
+        while (!toVisit.isEmpty()) {
+            // Relaxations either add nodes or improve the queued ones, so the open set grows by the nodes added
+            if (toVisit.size() > queued)
+                monitor.generated(toVisit.size() - queued, toVisit.size());
+            final int current = toVisit.poll();
+            queued = toVisit.size();
+            monitor.expanded();
+            if (current == endNode)
+                return refine();
+            final int currentCost = nodeCost[current];
+            if (current == startNode) {
+                for (int i = 0; i < startDistances.length; i++) {
+                    if (startDistances[i] < INFINITY)
+                        relax(current, startCluster * slots + i, currentCost + startDistances[i], end);
+                }
+                if (direct >= 0)
+                    relax(current, endNode, currentCost + direct, end);
+                continue;
+            }
+            final int cluster = current / slots;
+            final int entrance = current % slots;
+            final int[] clusterEntrances = entrances[cluster];
+            final int count = clusterEntrances.length;
+            for (int i = 0; i < count; i++) {
+                final int distance = distances[cluster][entrance * count + i];
+                if (i != entrance && distance < INFINITY)
+                    relax(current, cluster * slots + i, currentCost + distance, end);
+            }
+            if (cluster == endCluster && endDistances[entrance] < INFINITY)
+                relax(current, endNode, currentCost + endDistances[entrance], end);
+            final int cell = clusterEntrances[entrance];
+            final int cx = cluster % clustersX;
+            final int cy = cluster / clustersX;
+            relaxTransitions(current, cell, eastTransitions[cluster], false, cluster + 1, end);
+            if (cx > 0)
+                relaxTransitions(current, cell, eastTransitions[cluster - 1], true, cluster - 1, end);
+            relaxTransitions(current, cell, northTransitions[cluster], false, cluster + clustersX, end);
+            if (cy > 0)
+                relaxTransitions(current, cell, northTransitions[cluster - clustersX], true, cluster - clustersX, end);
+        }
+        throw new IllegalArgumentException("No path between start and end point exists!");
+    }
+
+    /**
+     * Follows the transitions of a border starting at the cell.
+     *
+     * @param reversed whether the cell is on the outer side of the border.
+     * @param other    the cluster on the other side of the border.
+     */
+    private void relaxTransitions(int current, int cell, int[] transitions, boolean reversed, int other, int end) {
+        for (int i = 0; i < transitions.length; i += 2) {
+            final int from = reversed ? transitions[i + 1] : transitions[i];
+            if (from != cell)
+                continue;
+            final int to = reversed ? transitions[i] : transitions[i + 1];
+            final int node = other * slots + entranceIndex(other, to);
+            relax(current, node, nodeCost[current] + 1, end);
+        }
+    }
+
+    private void relax(int from, int to, int score, int end) {
+        if (nodeStamp[to] == generation && score >= nodeCost[to])
+            return;
+        setCost(to, score, from);
+        toVisit.add(to, priority(cellOf(to, end), score, end));
+    }
+
+    private void setCost(int node, int cost, int parent) {
+        nodeStamp[node] = generation;
+        nodeCost[node] = cost;
+        nodeParent[node] = parent;
+    }
+
+    /**
+     * Allocates the abstract search state on the first query and invalidates the previous query's state on the next
+     * ones, touching only the nodes left in the open set.
+     */
+    private void resetSearch() {
+        if (toVisit == null) {
+            nodeCost = new int[endNode + 1];
+            nodeParent = new int[endNode + 1];
+            nodeStamp = new int[endNode + 1];
+            toVisit = new IndexedHeap(endNode + 1);
+        } else {
+            toVisit.clear();
+        }
+        if (++generation == 0) { // the stamps wrapped around, so the old ones could match again
+            Arrays.fill(nodeStamp, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Orders nodes by the f-score with the Manhattan heuristic, preferring the ones farther from the start among equals.
+     */
+    private long priority(int cell, int cost, int end) {
+        final int estimate = Math.abs(cell % width - end % width) + Math.abs(cell / width - end / width);
+        return ((long) (cost + estimate) << 32) | (Integer.MAX_VALUE - cost);
+    }
+
+    /**
+     * Finds the cell of an abstract node, the start and the end nodes going after all the entrance nodes.
+     */
+    private int cellOf(int node, int end) {
+        if (node == startNode)
+            return maze.getStartIndex();
+        if (node == startNode + 1)
+            return end;
+        return entrances[node / slots][node % slots];
+    }
+
+    /**
+     * Turns the abstract path into the cell path, searching inside every cluster the path crosses.
+     */
+    private List<Cell> refine() {
+        final int end = maze.getEndIndex();
+        List<Integer> nodes = new ArrayList<>();
+        for (int node = endNode; node != startNode; node = nodeParent[node])
+            nodes.add(cellOf(node, end));
+        nodes.add(maze.getStartIndex());
+
+        List<Cell> path = new ArrayList<>();
+        path.add(maze.cellAt(nodes.get(nodes.size() - 1)));
+        for (int i = nodes.size() - 1; i > 0; i--) {
+            final int from = nodes.get(i);
+            final int to = nodes.get(i - 1);
+            final int cluster = clusterOf(from);
+            if (cluster != clusterOf(to)) { // a transition between adjacent cells
+                path.add(maze.cellAt(to));
+                continue;
+            }
+            search(cluster, from);
+            final int first = path.size();
+            for (int local = localIndex(to); localParent[local] >= 0; local = localParent[local])
+                path.add(maze.cellAt(globalIndex(cluster, local)));
+            Collections.reverse(path.subList(first, path.size()));
+        }
+        return path;
+    }
+
+    /**
+     * Rebuilds the list of the cluster entrances and the distances between them.
+     */
+    private void connectEntrances(int cluster) {
+        final int cx = cluster % clustersX;
+        final int cy = cluster / clustersX;
+        int[] cells = new int[slots];
+        int count = 0;
+        count = collect(cells, count, eastTransitions[cluster], 0);
+        count = collect(cells, count, northTransitions[cluster], 0);
+        if (cx > 0)
+            count = collect(cells, count, eastTransitions[cluster - 1], 1);
+        if (cy > 0)
+            count = collect(cells, count, northTransitions[cluster - clustersX], 1);
+        Arrays.sort(cells, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || cells[distinct - 1] != cells[i])
+                cells[distinct++] = cells[i];
+        }
+        entrances[cluster] = Arrays.copyOf(cells, distinct);
+        int[] matrix = new int[distinct * distinct];
+        for (int i = 0; i < distinct; i++) {
+            int[] row = entranceDistances(cluster, cells[i]);
+            System.arraycopy(row, 0, matrix, i * distinct, distinct);
+        }
+        distances[cluster] = matrix;
+    }
+
+    private static int collect(int[] cells, int count, int[] transitions, int side) {
+        for (int i = side; i < transitions.length; i += 2)
+            cells[count++] = transitions[i];
+        return count;
+    }
+
+    /**
+     * Finds the distances from the cell to every entrance of its cluster, moving inside the cluster only.
+     * The distances to all the cluster cells stay in the local distance array.
+     */
+    private int[] entranceDistances(int cluster, int cell) {
+        search(cluster, cell);
+        final int[] clusterEntrances = entrances[cluster];
+        int[] result = new int[clusterEntrances.length];
+        for (int i = 0; i < result.length; i++) {
+            final int distance = localDistance[localIndex(clusterEntrances[i])];
+            result[i] = (distance >= 0) ? distance : INFINITY;
+        }
+        return result;
+    }
+
+    /**
+     * Runs a breadth-first search from the cell, restricted to its cluster.
+     * The neighbours are visited in the same order as by {@link Maze#neighbours(int, int[])}.
+     */
+    private void search(int cluster, int cell) {
+        Arrays.fill(localDistance, -1);
+        final int originX = (cluster % clustersX) * clusterSize;
+        final int originY = (cluster / clustersX) * clusterSize;
+        final int clusterWidth = Math.min(clusterSize, width - originX);
+        final int clusterHeight = Math.min(clusterSize, height - originY);
+        final int origin = localIndex(cell);
+        int head = 0;
+        int tail = 0;
+        localQueue[tail++] = origin;
+        localDistance[origin] = 0;
+        localParent[origin] = -1;
+        while (head < tail) {
+            final int current = localQueue[head++];
+            final int x = current % clusterSize;
+            final int y = current / clusterSize;
+            final int index = (originY + y) * width + originX + x;
+            if (y + 1 < clusterHeight)
+                tail = visit(current, current + clusterSize, index + width, tail);
+            if (y > 0)
+                tail = visit(current, current - clusterSize, index - width, tail);
+            if (x + 1 < clusterWidth)
+                tail = visit(current, current + 1, index + 1, tail);
+            if (x > 0)
+                tail = visit(current, current - 1, index - 1, tail);
+        }
+    }
+
+    private int visit(int from, int local, int index, int tail) {
+        if (localDistance[local] >= 0 || maze.isWall(index))
+            return tail;
+        localDistance[local] = localDistance[from] + 1;
+        localParent[local] = from;
+        localQueue[tail++] = local;
+        return tail;
+    }
+
+    private int[] findEastTransitions(int cluster) {
+        final int cx = cluster % clustersX;
+        final int cy = cluster / clustersX;
+        if (cx + 1 >= clustersX)
+            return new int[0];
+        final int x = (cx + 1) * clusterSize - 1;
+        final int from = cy * clusterSize;
+        final int to = Math.min(from + clusterSize, height);
+        return findTransitions(from * width + x, width, 1, to - from);
+    }
+
+    private int[] findNorthTransitions(int cluster) {
+        final int cx = cluster % clustersX;
+        final int cy = cluster / clustersX;
+        if (cy + 1 >= clustersY)
+            return new int[0];
+        final int y = (cy + 1) * clusterSize - 1;
+        final int from = cx * clusterSize;
+        final int to = Math.min(from + clusterSize, width);
+        return findTransitions(y * width + from, 1, width, to - from);
+    }
+
+    /**
+     * Places transitions on the runs of open cell pairs along a border.
+     *
+     * @param first  the index of the first inner cell of the border.
+     * @param step   the index difference between consecutive inner cells.
+     * @param across the index difference between an inner cell and the outer cell next to it.
+     * @param length the number of cells along the border.
+     * @return pairs of inner and outer cell indices.
+     */
+    private int[] findTransitions(int first, int step, int across, int length) {
+        int[] result = new int[4 * ((length + 1) / 2)];
+        int count = 0;
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            final int cell = first + i * step;
+            final boolean open = i < length && !maze.isWall(cell) && !maze.isWall(cell + across);
+            if (open && runStart < 0) {
+                runStart = i;
+            } else if (!open && runStart >= 0) {
+                final int runLength = i - runStart;
+                if (runLength >= LONG_RUN) {
+                    count = addTransition(result, count, first + runStart * step, across);
+                    count = addTransition(result, count, first + (i - 1) * step, across);
+                } else {
+                    count = addTransition(result, count, first + (runStart + runLength / 2) * step, across);
+                }
+                runStart = -1;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int addTransition(int[] transitions, int count, int cell, int across) {
+        transitions[count++] = cell;
+        transitions[count++] = cell + across;
+        return count;
+    }
+
+    private int entranceIndex(int cluster, int cell) {
+        return Arrays.binarySearch(entrances[cluster], cell);
+    }
+
+    private int clusterOf(int index) {
+        return (index / width / clusterSize) * clustersX + (index % width) / clusterSize;
+    }
+
+    private int localIndex(int index) {
+        return (index / width % clusterSize) * clusterSize + index % width % clusterSize;
+    }
+
+    private int globalIndex(int cluster, int local) {
+        final int x = (cluster % clustersX) * clusterSize + local % clusterSize;
+        final int y = (cluster / clustersX) * clusterSize + local / clusterSize;
+        return y * width + x;
+    }
+}
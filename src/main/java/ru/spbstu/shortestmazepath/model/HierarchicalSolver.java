@@ -0,0 +1,21 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.List;
+
+/**
+ * Solves mazes with the {@link HierarchicalPlanner}. Building the abstract graph takes a pass over the whole maze,
+ * so the planner is kept by the maze, which repairs it locally whenever a wall is added or removed.
+ * <p>
+ * The paths found are near-optimal rather than the shortest ones, as they are bound to go through the entrances
+ * of the clusters.
+ */
+class HierarchicalSolver implements MazeSolver {
+
+    @Override
+    public List<Cell> solve(Maze maze, SearchMonitor monitor) throws IllegalArgumentException {
+        HierarchicalPlanner planner = maze.getHierarchicalPlanner();
+        synchronized (planner) { // the planner keeps its search state between the queries
+            return planner.solve(monitor);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distribution of non-negative values in buckets of powers of two: the bucket k holds the values
+ * from 2<sup>k-1</sup> to 2<sup>k</sup> - 1, and the bucket 0 holds zero. Recording a value takes a few atomic
+ * additions, so a histogram may be shared by any number of threads.
+ */
+public class Histogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Adds the value to the histogram. Negative values are recorded as zero.
+     */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return the mean of the values recorded, or 0 if there are none.
+     */
+    public double getMean() {
+        final long n = count.get();
+        return (n == 0) ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * Estimates a quantile of the values recorded.
+     *
+     * @param quantile the quantile between 0 and 1, e.g. 0.99.
+     * @return the upper bound of the bucket containing the quantile, but no more than the maximum value,
+     * or 0 if there are no values.
+     */
+    public long getQuantile(double quantile) {
+        final long n = count.get();
+        if (n == 0)
+            return 0;
+        final long rank = Math.max(1, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank)
+                return Math.min((i == 0) ? 0 : (1L << i) - 1, getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * @return the number of values recorded in every bucket.
+     */
+    public long[] getBuckets() {
+        long[] result = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++)
+            result[i] = buckets.get(i);
+        return result;
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            buckets.set(i, 0);
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count %d, mean %.1f, p50 %d, p90 %d, p99 %d, max %d",
+                getCount(), getMean(), getQuantile(0.5), getQuantile(0.9), getQuantile(0.99), getMax());
+    }
+}
@@ -0,0 +1,184 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps the shortest path of a maze up to date while the maze is being edited, using Lifelong Planning A*.
+ * The search state is kept between the queries, so after a cell changes only the part of the search affected
+ * by the change is repeated. A move costs as much as the cell it enters, so the terrain is taken into account.
+ * <p>
+ * The maze must only be edited through {@link #setType(int, int, Cell.Type)} while the planner is in use.
+ * Moving the start or the end point starts the search over. A cancelled search is resumed by the next query.
+ */
+public class IncrementalPlanner {
+
+    private static final int INFINITY = Integer.MAX_VALUE / 4;
+
+    private final Maze maze;
+    private final int width;
+    /**
+     * The cost of the best path from the start found so far.
+     */
+    private final int[] cost;
+    /**
+     * One-step lookahead of the cost, based on the costs of the neighbours.
+     */
+    private final int[] lookahead;
+    private final int[] neighbours = new int[4];
+    private IndexedHeap toVisit;
+    private int start = Maze.NO_CELL;
+    private int end = Maze.NO_CELL;
+    /**
+     * Whether the search has run to the end since it was last started over.
+     */
+    private boolean complete = false;
+
+    public IncrementalPlanner(Maze maze) {
+        this.maze = maze;
+        this.width = maze.getWidth();
+        final int size = width * maze.getHeight();
+        cost = new int[size];
+        lookahead = new int[size];
+    }
+
+    public Maze getMaze() {
+        return maze;
+    }
+
+    /**
+     * Changes the type of the cell and repairs the search state around it.
+     *
+     * @throws IndexOutOfBoundsException if the position is outside the maze.
+     */
+    public void setType(int x, int y, Cell.Type type) {
+        maze.setType(x, y, type);
+        if (toVisit == null || maze.getStartIndex() != start || maze.getEndIndex() != end)
+            return; // the search is started over by the next query
+        final int index = y * width + x;
+        update(index);
+        final int count = maze.neighbours(index, neighbours);
+        int[] around = Arrays.copyOf(neighbours, count);
+        for (int neighbour : around)
+            update(neighbour);
+    }
+
+    /**
+     * Checks whether the next query only repairs a finished search around the cells changed since, rather than
+     * searching the maze from scratch or resuming a cancelled search.
+     */
+    public boolean hasCompleteSearch() {
+        return complete && maze.getStartIndex() == start && maze.getEndIndex() == end;
+    }
+
+    /**
+     * Finds the shortest path from the start point to the end point, reusing the previous search.
+     *
+     * @return a list containing all the cells included in the path.
+     * @throws IllegalArgumentException if the shortest path cannot be found.
+     */
+    public List<Cell> solve() throws IllegalArgumentException {
+        return solve(new SearchMonitor());
+    }
+
+    /**
+     * Finds the shortest path from the start point to the end point, reusing the previous search.
+     *
+     * @param monitor the monitor the search reports its progress to.
+     * @return a list containing all the cells included in the path.
+     * @throws IllegalArgumentException if the shortest path cannot be found.
+     */
+    public List<Cell> solve(SearchMonitor monitor) throws IllegalArgumentException {
+        if (maze.getStartIndex() == Maze.NO_CELL || maze.getEndIndex() == Maze.NO_CELL)
+            throw new IllegalArgumentException("Both start and end points must be set!");
+        if (toVisit == null || maze.getStartIndex() != start || maze.getEndIndex() != end)
+            restart();
+        // The pending updates stay queued, so they are not lost when the search is skipped
+        if (!maze.hasPath())
+            throw new IllegalArgumentException("No path between start and end point exists!");
+        while (!toVisit.isEmpty() && (toVisit.peekPriority() < key(end) || lookahead[end] != cost[end])) {
+            monitor.expanded(); // may cancel the search, which must leave the open set intact
+            final int current = toVisit.poll();
+            final int openSetSize = toVisit.size();
+            if (cost[current] > lookahead[current]) {
+                cost[current] = lookahead[current];
+            } else {
+                cost[current] = INFINITY;
+                update(current);
+            }
+            final int count = maze.neighbours(current, neighbours);
+            int[] around = Arrays.copyOf(neighbours, count);
+            for (int neighbour : around)
+                update(neighbour);
+            if (toVisit.size() > openSetSize)
+                monitor.generated(toVisit.size() - openSetSize, toVisit.size());
+        }
+        complete = true;
+        if (cost[end] >= INFINITY)
+            throw new IllegalArgumentException("No path between start and end point exists!");
+        return tracePath();
+    }
+
+    private void restart() {
+        start = maze.getStartIndex();
+        end = maze.getEndIndex();
+        Arrays.fill(cost, INFINITY);
+        Arrays.fill(lookahead, INFINITY);
+        toVisit = new IndexedHeap(cost.length);
+        complete = false;
+        lookahead[start] = 0;
+        toVisit.add(start, key(start));
+    }
+
+    /**
+     * Recalculates the lookahead of the cell and puts it into the open set if it became inconsistent.
+     */
+    private void update(int index) {
+        if (index != start) {
+            int best = INFINITY;
+            if (!maze.isWall(index)) {
+                final int count = maze.neighbours(index, neighbours);
+                final int enterCost = maze.costAt(index);
+                for (int i = 0; i < count; i++)
+                    best = Math.min(best, cost[neighbours[i]] + enterCost);
+            }
+            lookahead[index] = best;
+        }
+        if (cost[index] != lookahead[index])
+            toVisit.add(index, key(index));
+        else
+            toVisit.remove(index);
+    }
+
+    /**
+     * Orders cells by the estimated path length through them, then by the cost from the start.
+     */
+    private long key(int index) {
+        final int best = Math.min(cost[index], lookahead[index]);
+        final int estimate = Math.abs(index % width - end % width) + Math.abs(index / width - end / width);
+        return ((long) (best + estimate) << 32) | best;
+    }
+
+    /**
+     * Walks from the end point to the start point, always stepping to the neighbour closest to the start.
+     */
+    private List<Cell> tracePath() {
+        List<Cell> path = new ArrayList<>();
+        int current = end;
+        while (current != start) {
+            path.add(maze.cellAt(current));
+            final int count = maze.neighbours(current, neighbours);
+            int next = neighbours[0];
+            for (int k = 1; k < count; k++) {
+                if (cost[neighbours[k]] < cost[next])
+                    next = neighbours[k];
+            }
+            current = next;
+        }
+        path.add(maze.cellAt(start));
+        Collections.reverse(path);
+        return path;
+    }
+}
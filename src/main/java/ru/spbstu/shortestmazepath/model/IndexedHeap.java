@@ -0,0 +1,164 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A 4-ary min-heap of integer elements from [0, capacity) ordered by long priorities.
+ * Every element keeps its heap position, so membership checks are O(1) and priority updates are O(log n).
+ */
+class IndexedHeap {
+
+    private static final int ARITY = 4;
+    private static final int INITIAL_SIZE = 64;
+
+    private final int[] positions;
+    private int[] elements = new int[INITIAL_SIZE];
+    private long[] priorities = new long[INITIAL_SIZE];
+    private int size = 0;
+
+    /**
+     * @param capacity the upper bound (exclusive) of the elements to be stored.
+     */
+    IndexedHeap(int capacity) {
+        positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int element) {
+        return positions[element] >= 0;
+    }
+
+    long priorityOf(int element) {
+        return priorities[positions[element]];
+    }
+
+    /**
+     * Adds the element with the specified priority or changes its priority if it is already in the heap.
+     */
+    void add(int element, long priority) {
+        int pos = positions[element];
+        if (pos >= 0) {
+            final long old = priorities[pos];
+            priorities[pos] = priority;
+            if (priority < old)
+                siftUp(pos);
+            else
+                siftDown(pos);
+            return;
+        }
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+            priorities = Arrays.copyOf(priorities, size * 2);
+        }
+        pos = size++;
+        elements[pos] = element;
+        priorities[pos] = priority;
+        positions[element] = pos;
+        siftUp(pos);
+    }
+
+    /**
+     * Retrieves the priority of the head of the heap.
+     *
+     * @throws NoSuchElementException if the heap is empty.
+     */
+    long peekPriority() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return priorities[0];
+    }
+
+    /**
+     * Retrieves and removes the element with the lowest priority.
+     *
+     * @throws NoSuchElementException if the heap is empty.
+     */
+    int poll() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        final int head = elements[0];
+        removeAt(0);
+        return head;
+    }
+
+    /**
+     * Removes the element from the heap if it is present.
+     */
+    void remove(int element) {
+        final int pos = positions[element];
+        if (pos >= 0)
+            removeAt(pos);
+    }
+
+    /**
+     * Removes all the elements, taking time proportional to their number rather than to the capacity.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++)
+            positions[elements[i]] = -1;
+        size = 0;
+    }
+
+    private void removeAt(int pos) {
+        positions[elements[pos]] = -1;
+        final int last = --size;
+        if (pos == last)
+            return;
+        elements[pos] = elements[last];
+        priorities[pos] = priorities[last];
+        positions[elements[pos]] = pos;
+        if (pos > 0 && priorities[pos] < priorities[(pos - 1) / ARITY])
+            siftUp(pos);
+        else
+            siftDown(pos);
+    }
+
+    private void siftUp(int pos) {
+        final int element = elements[pos];
+        final long priority = priorities[pos];
+        while (pos > 0) {
+            final int parent = (pos - 1) / ARITY;
+            if (priority >= priorities[parent])
+                break;
+            place(pos, elements[parent], priorities[parent]);
+            pos = parent;
+        }
+        place(pos, element, priority);
+    }
+
+    private void siftDown(int pos) {
+        final int element = elements[pos];
+        final long priority = priorities[pos];
+        while (true) {
+            final int first = pos * ARITY + 1;
+            if (first >= size)
+                break;
+            int min = first;
+            final int last = Math.min(first + ARITY, size);
+            for (int child = first + 1; child < last; child++) {
+                if (priorities[child] < priorities[min])
+                    min = child;
+            }
+            if (priorities[min] >= priority)
+                break;
+            place(pos, elements[min], priorities[min]);
+            pos = min;
+        }
+        place(pos, element, priority);
+    }
+
+    private void place(int pos, int element, long priority) {
+        elements[pos] = element;
+        priorities[pos] = priority;
+        positions[element] = pos;
+    }
+}
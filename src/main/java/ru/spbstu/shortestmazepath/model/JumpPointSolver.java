@@ -0,0 +1,180 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the shortest path using Jump Point Search adapted to the 4-connected grid.
+ * Straight runs of cells without forced neighbours are skipped in a single jump, so in open areas
+ * only the cells where the path may turn are put into the open set.
+ * The search is A* over jump points with the Manhattan distance as both the edge cost and the heuristic.
+ */
+class JumpPointSolver implements MazeSolver {
+
+    private static final int NONE = -1;
+
+    private Maze maze;
+    private int width;
+    private int height;
+    private int end;
+
+    @Override
+    public List<Cell> solve(Maze maze, SearchMonitor monitor) throws IllegalArgumentException {
+        final int start = maze.getStartIndex();
+        final int end = maze.getEndIndex();
+        if (start == Maze.NO_CELL || end == Maze.NO_CELL)
+            throw new IllegalArgumentException("Both start and end points must be set!");
+        this.maze = maze;
+        this.width = maze.getWidth();
+        this.height = maze.getHeight();
+        this.end = end;
+        final int size = width * height;
+
+        int[] cost = new int[size];
+        Arrays.fill(cost, Integer.MAX_VALUE);
+        int[] cameFrom = new int[size];
+        long[] visited = new long[Maze.wordCount(height, width)];
+        IndexedHeap toVisit = new IndexedHeap(size);
+        int[] successors = new int[4];
+
+        cost[start] = 0;
+        cameFrom[start] = start;
+        toVisit.add(start, priority(start, 0));
+        monitor.generated(1);
+        while (!toVisit.isEmpty()) {
+            final int current = toVisit.poll();
+            monitor.expanded();
+            if (current == end)
+                return expandPath(cameFrom, start, end);
+            Maze.setBit(visited, current);
+            final int count = successors(current, cameFrom[current], successors);
+            for (int i = 0; i < count; i++) {
+                final int next = successors[i];
+                if (Maze.testBit(visited, next))
+                    continue;
+                final int score = cost[current] + distance(current, next);
+                if (score >= cost[next])
+                    continue;
+                final boolean isNew = cost[next] == Integer.MAX_VALUE;
+                cost[next] = score;
+                cameFrom[next] = current;
+                toVisit.add(next, priority(next, score));
+                if (isNew)
+                    monitor.generated(toVisit.size());
+            }
+        }
+        throw new IllegalArgumentException("No path between start and end point exists!");
+    }
+
+    /**
+     * Finds the jump points reachable from the cell, pruning the directions a shortest path cannot continue in.
+     *
+     * @param current the index of the cell being expanded.
+     * @param parent  the index of the jump point the cell was reached from, or the cell itself for the start point.
+     * @param out     an array of at least 4 elements to store the jump points in.
+     * @return the number of jump points found.
+     */
+    private int successors(int current, int parent, int[] out) {
+        final int x = current % width;
+        final int y = current / width;
+        final int dx = Integer.signum(x - parent % width);
+        final int dy = Integer.signum(y - parent / width);
+        int count = 0;
+        if (dx == 0 && dy == 0) {
+            count = add(out, count, jumpVertical(x, y + 1, 1));
+            count = add(out, count, jumpVertical(x, y - 1, -1));
+            count = add(out, count, jumpHorizontal(x + 1, y, 1));
+            count = add(out, count, jumpHorizontal(x - 1, y, -1));
+        } else if (dx != 0) {
+            count = add(out, count, jumpVertical(x, y + 1, 1));
+            count = add(out, count, jumpVertical(x, y - 1, -1));
+            count = add(out, count, jumpHorizontal(x + dx, y, dx));
+        } else {
+            count = add(out, count, jumpVertical(x, y + dy, dy));
+            count = add(out, count, jumpHorizontal(x + 1, y, 1));
+            count = add(out, count, jumpHorizontal(x - 1, y, -1));
+        }
+        return count;
+    }
+
+    private static int add(int[] out, int count, int jumpPoint) {
+        if (jumpPoint != NONE)
+            out[count++] = jumpPoint;
+        return count;
+    }
+
+    /**
+     * Moves horizontally from (x, y) until a wall, the end point or a cell with a forced neighbour is met.
+     *
+     * @return the index of the jump point found or {@link #NONE} if the run ends with a wall.
+     */
+    private int jumpHorizontal(int x, int y, int dx) {
+        while (isOpen(x, y)) {
+            final int index = y * width + x;
+            if (index == end)
+                return index;
+            if (isOpen(x, y - 1) && !isOpen(x - dx, y - 1) || isOpen(x, y + 1) && !isOpen(x - dx, y + 1))
+                return index;
+            x += dx;
+        }
+        return NONE;
+    }
+
+    /**
+     * Moves vertically from (x, y) until a wall, the end point, a cell with a forced neighbour
+     * or a cell having a horizontal jump point is met.
+     *
+     * @return the index of the jump point found or {@link #NONE} if the run ends with a wall.
+     */
+    private int jumpVertical(int x, int y, int dy) {
+        while (isOpen(x, y)) {
+            final int index = y * width + x;
+            if (index == end)
+                return index;
+            if (isOpen(x - 1, y) && !isOpen(x - 1, y - dy) || isOpen(x + 1, y) && !isOpen(x + 1, y - dy))
+                return index;
+            if (jumpHorizontal(x + 1, y, 1) != NONE || jumpHorizontal(x - 1, y, -1) != NONE)
+                return index;
+            y += dy;
+        }
+        return NONE;
+    }
+
+    private boolean isOpen(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && !maze.isWall(y * width + x);
+    }
+
+    private int distance(int from, int to) {
+        return Math.abs(from % width - to % width) + Math.abs(from / width - to / width);
+    }
+
+    /**
+     * Orders cells by the f-score, preferring the ones farther from the start among equal scores.
+     */
+    private long priority(int index, int cost) {
+        return ((long) (cost + distance(index, end)) << 32) | (Integer.MAX_VALUE - cost);
+    }
+
+    /**
+     * Restores the full path, filling the straight segments between consecutive jump points.
+     */
+    private List<Cell> expandPath(int[] cameFrom, int start, int end) {
+        int length = 1;
+        for (int current = end; current != start; current = cameFrom[current])
+            length += distance(current, cameFrom[current]);
+        Cell[] path = new Cell[length];
+        int i = length - 1;
+        path[i] = maze.cellAt(end);
+        for (int current = end; current != start; current = cameFrom[current]) {
+            final int parent = cameFrom[current];
+            final int step = (parent % width == current % width) ? width : 1;
+            final int direction = (parent < current) ? -step : step;
+            for (int cell = current + direction; ; cell += direction) {
+                path[--i] = maze.cellAt(cell);
+                if (cell == parent)
+                    break;
+            }
+        }
+        return Arrays.asList(path);
+    }
+}
@@ -0,0 +1,92 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates mazes with randomized Kruskal's algorithm: the walls between adjacent rooms are visited in random order,
+ * and a wall is removed if the rooms are not connected yet, which is checked with a union-find structure.
+ * The mazes have many short dead ends.
+ * <p>
+ * The walls are visited in the order of a keyed Feistel permutation of their indices, so the list of walls
+ * is neither stored nor shuffled. Only the union-find array takes memory, one int per room.
+ * The sets are united by size, which keeps the trees shallow.
+ */
+class KruskalGenerator extends PerfectMazeGenerator {
+
+    private static final int ROUNDS = 4;
+
+    @Override
+    void carve(SplittableRandom random) {
+        final int columns = roomColumns;
+        final int rows = roomRows;
+        // Walls between horizontal neighbours go first, then the ones between vertical neighbours
+        final long horizontal = (long) rows * (columns - 1);
+        final long edges = horizontal + (long) (rows - 1) * columns;
+
+        // The root of a set keeps the negated size of the set, the other rooms keep their parents
+        int[] parent = new int[rooms];
+        for (int i = 0; i < rooms; i++) {
+            parent[i] = -1;
+            carveRoom(i);
+        }
+        int[] keys = new int[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++)
+            keys[i] = random.nextInt();
+        final int halfBits = (65 - Long.numberOfLeadingZeros(Math.max(edges - 1, 1))) / 2;
+        final long domain = 1L << (2 * halfBits);
+
+        int remaining = rooms - 1;
+        for (long i = 0; i < domain && remaining > 0; i++) {
+            final long edge = permute(i, halfBits, keys);
+            if (edge >= edges)
+                continue;
+            final int room;
+            final int direction;
+            if (edge < horizontal) {
+                room = (int) (edge / (columns - 1) * columns + edge % (columns - 1));
+                direction = 2;
+            } else {
+                room = (int) (edge - horizontal);
+                direction = 0;
+            }
+            final int a = find(parent, room);
+            final int b = find(parent, neighbour(room, direction));
+            if (a != b) {
+                if (parent[a] < parent[b]) {
+                    parent[a] += parent[b];
+                    parent[b] = a;
+                } else {
+                    parent[b] += parent[a];
+                    parent[a] = b;
+                }
+                carvePassage(room, direction);
+                remaining--;
+            }
+        }
+    }
+
+    /**
+     * Maps the number to another one of the same bit length with a balanced Feistel network.
+     * The mapping is a bijection for any keys.
+     */
+    private static long permute(long value, int halfBits, int[] keys) {
+        final long mask = (1L << halfBits) - 1;
+        long left = value >>> halfBits;
+        long right = value & mask;
+        for (int key : keys) {
+            final long mixed = left ^ (Maze.mix((int) right ^ key) & mask);
+            left = right;
+            right = mixed;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private static int find(int[] parent, int room) {
+        while (parent[room] >= 0) {
+            if (parent[parent[room]] >= 0)
+                parent[room] = parent[parent[room]];
+            room = parent[room];
+        }
+        return room;
+    }
+}
@@ -1,28 +1,269 @@
 package ru.spbstu.shortestmazepath.model;
 
-import ru.spbstu.shortestmazepath.controller.MazeController;
-
 import java.util.*;
 
 public class Maze {
 
-    private static final int MIN_SIZE = MazeController.MIN_MAZE_SIZE;
-    private static final int MAX_SIZE = MazeController.MAX_MAZE_SIZE;
+    private static final int RANDOM_MIN_SIZE = 3;
+    private static final int RANDOM_MAX_SIZE = 16;
+
+    /**
+     * Index used for the start or the end point when it is not set.
+     */
+    static final int NO_CELL = -1;
 
     private final int height;
     private final int width;
-    private final Cell startCell;
-    private final Cell endCell;
-    private final Cell[][] mazeGrid;
+    private int startIndex;
+    private int endIndex;
+    /**
+     * Wall bitmap. The cell (x, y) has the linear index y * width + x and is a wall if the corresponding bit is set.
+     */
+    private final long[] walls;
+    /**
+     * The extra cost of a move into every cell over a move into a plain one, indexed the same way as the walls:
+     * 0 for plain cells, {@link Cell.Type#MUD} and {@link Cell.Type#DOOR} cost more. The array is only allocated
+     * while the maze has such cells, so mazes without terrain take no extra memory and are solved as before.
+     */
+    private byte[] terrain;
+    private int terrainCells = 0;
+    /**
+     * Connected components of the maze, built on the first {@link #hasPath()} call and then kept up to date
+     * by {@link #setType}.
+     */
+    private ConnectivityIndex connectivity;
+    /**
+     * XOR of {@link #fingerprintOf(int)} over all the cells, computed on demand and then kept up to date by
+     * {@link #setType}.
+     */
+    private long fingerprint;
+    private boolean hasFingerprint = false;
+    /**
+     * The number of times a wall has been added or removed or the cost of a cell has changed, used to detect
+     * outdated {@link DistanceField}s.
+     */
+    private int modCount = 0;
+    private DistanceField distanceField;
+    /**
+     * The planner used by {@link Algorithm#HIERARCHICAL}, built on the first use and then kept up to date
+     * by {@link #setType}.
+     */
+    private HierarchicalPlanner hierarchicalPlanner;
 
     public Maze(int height, int width, Cell startCell, Cell endCell, Cell[][] mazeGrid) {
+        if (mazeGrid.length != width || mazeGrid[0].length != height)
+            throw new IllegalArgumentException("Wrong height or width passed!");
         this.height = height;
         this.width = width;
-        this.startCell = startCell;
-        this.endCell = endCell;
-        if (mazeGrid.length != width || mazeGrid[0].length != height)
+        this.startIndex = (startCell != null) ? startCell.y * width + startCell.x : NO_CELL;
+        this.endIndex = (endCell != null) ? endCell.y * width + endCell.x : NO_CELL;
+        this.walls = new long[wordCount(height, width)];
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < height; j++) {
+                Cell cell = mazeGrid[i][j];
+                if (cell == null)
+                    continue;
+                if (cell.type == Cell.Type.WALL)
+                    setBit(walls, j * width + i);
+                else if (cell.type.getCost() > 1)
+                    setTerrain(j * width + i, cell.type);
+            }
+        }
+    }
+
+    /**
+     * Creates a maze of the specified size without walls and without start and end points.
+     * The cells can be then set with {@link #setType(int, int, Cell.Type)}.
+     */
+    public Maze(int height, int width) {
+        this(height, width, NO_CELL, NO_CELL, emptyWalls(height, width));
+    }
+
+    /**
+     * Creates a copy of the maze with another size. The cells inside both mazes are kept, the new ones are paths.
+     * The start and the end points are dropped if they do not fit into the new maze.
+     *
+     * @return a new maze of the specified size.
+     */
+    public Maze resized(int height, int width) {
+        long[] resized = emptyWalls(height, width);
+        final int rows = Math.min(height, this.height);
+        final int columns = Math.min(width, this.width);
+        for (int y = 0; y < rows; y++) {
+            final int row = y * this.width;
+            int wall = nextBit(walls, row, row + columns, true);
+            while (wall < row + columns) {
+                setBit(resized, y * width + wall - row);
+                wall = nextBit(walls, wall + 1, row + columns, true);
+            }
+        }
+        byte[] resizedTerrain = null;
+        if (terrain != null) {
+            resizedTerrain = new byte[height * width];
+            for (int y = 0; y < rows; y++)
+                System.arraycopy(terrain, y * this.width, resizedTerrain, y * width, columns);
+        }
+        return new Maze(height, width, resizedIndex(startIndex, height, width), resizedIndex(endIndex, height, width),
+                resized, resizedTerrain);
+    }
+
+    private int resizedIndex(int index, int height, int width) {
+        if (index == NO_CELL || index % this.width >= width || index / this.width >= height)
+            return NO_CELL;
+        return index / this.width * width + index % this.width;
+    }
+
+    private static long[] emptyWalls(int height, int width) {
+        if (height <= 0 || width <= 0)
             throw new IllegalArgumentException("Wrong height or width passed!");
-        this.mazeGrid = mazeGrid;
+        return new long[wordCount(height, width)];
+    }
+
+    /**
+     * Creates a maze directly over a wall bitmap, without building any cells.
+     *
+     * @param walls wall bitmap of at least {@link #wordCount(int, int)} words, taken without copying.
+     */
+    Maze(int height, int width, int startIndex, int endIndex, long[] walls) {
+        this(height, width, startIndex, endIndex, walls, null);
+    }
+
+    /**
+     * Creates a maze directly over a wall bitmap and a terrain array, without building any cells.
+     *
+     * @param walls   wall bitmap of at least {@link #wordCount(int, int)} words, taken without copying.
+     * @param terrain the extra cost of a move into every cell, taken without copying, or null if all the cells
+     *                are plain.
+     * @throws IllegalArgumentException if the terrain has a wrong size or an unknown cost, or if a wall, the start
+     *                                  or the end point has a cost.
+     */
+    Maze(int height, int width, int startIndex, int endIndex, long[] walls, byte[] terrain) {
+        if (walls.length < wordCount(height, width))
+            throw new IllegalArgumentException("Wrong height or width passed!");
+        this.height = height;
+        this.width = width;
+        this.startIndex = startIndex;
+        this.endIndex = endIndex;
+        this.walls = walls;
+        if (terrain != null) {
+            if (terrain.length != height * width)
+                throw new IllegalArgumentException("Wrong height or width passed!");
+            for (int i = 0; i < terrain.length; i++) {
+                if (terrain[i] == 0)
+                    continue;
+                if (terrainType(terrain[i]) == null || isWall(i) || i == startIndex || i == endIndex)
+                    throw new IllegalArgumentException("Incorrect terrain at (" + i % width + ", " + i / width + ")");
+                terrainCells++;
+            }
+            if (terrainCells > 0)
+                this.terrain = terrain;
+        }
+    }
+
+    /**
+     * Calculates the length of a wall bitmap for the maze of the specified size.
+     *
+     * @return the number of 64-bit words needed to hold one bit per cell.
+     */
+    static int wordCount(int height, int width) {
+        return (int) (((long) height * width + 63) >>> 6);
+    }
+
+    static void setBit(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    static void clearBit(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+
+    static boolean testBit(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets all the bits from the range [from, to).
+     */
+    static void setBits(long[] bits, int from, int to) {
+        if (from >= to)
+            return;
+        final int first = from >>> 6;
+        final int last = (to - 1) >>> 6;
+        final long firstMask = -1L << from;
+        final long lastMask = -1L >>> -to;
+        if (first == last) {
+            bits[first] |= firstMask & lastMask;
+            return;
+        }
+        bits[first] |= firstMask;
+        for (int i = first + 1; i < last; i++)
+            bits[i] = -1L;
+        bits[last] |= lastMask;
+    }
+
+    /**
+     * Finds the first bit with the specified value in the range [from, to).
+     *
+     * @return the index of the bit found or {@code to} if there is none.
+     */
+    static int nextBit(long[] bits, int from, int to, boolean value) {
+        if (from >= to)
+            return to;
+        int i = from >>> 6;
+        long word = (value ? bits[i] : ~bits[i]) & (-1L << from);
+        while (word == 0) {
+            if ((++i << 6) >= to)
+                return to;
+            word = value ? bits[i] : ~bits[i];
+        }
+        return Math.min((i << 6) + Long.numberOfTrailingZeros(word), to);
+    }
+
+    /**
+     * Scrambles a cell index into a 64-bit value, so that fingerprints of different wall sets rarely collide.
+     */
+    static long mix(int index) {
+        long z = (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Computes a 64-bit hash of the walls and the terrain. Unlike {@link #equals(Object)}, it does not take the size
+     * and the start and end points into account. The fingerprint is computed once and then updated in constant time
+     * on every edit.
+     *
+     * @return the fingerprint of the wall and terrain layout.
+     */
+    public long getFingerprint() {
+        if (!hasFingerprint) {
+            long result = 0;
+            for (int i = 0; i < walls.length; i++) {
+                for (long word = walls[i]; word != 0; word &= word - 1)
+                    result ^= mix((i << 6) + Long.numberOfTrailingZeros(word));
+            }
+            if (terrain != null) {
+                for (int i = 0; i < terrain.length; i++) {
+                    if (terrain[i] != 0)
+                        result ^= fingerprintOf(i);
+                }
+            }
+            fingerprint = result;
+            hasFingerprint = true;
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Computes the contribution of a cell to the fingerprint: nothing for plain cells, the mixed index for walls
+     * and the mixed index rotated by the extra cost for the terrain.
+     */
+    private long fingerprintOf(int index) {
+        if (isWall(index))
+            return mix(index);
+        final int extraCost = (terrain != null) ? terrain[index] : 0;
+        return (extraCost != 0) ? Long.rotateLeft(mix(index), extraCost) : 0;
     }
 
     public int getHeight() {
@@ -34,7 +275,7 @@ public class Maze {
     }
 
     public Cell getStartCell() {
-        return startCell;
+        return (startIndex != NO_CELL) ? cellAt(startIndex) : null;
     }
 
     @Override
@@ -46,27 +287,220 @@ public class Maze {
 
         if (height != maze.height) return false;
         if (width != maze.width) return false;
-        if (!Objects.equals(startCell, maze.startCell)) return false;
-        if (!Objects.equals(endCell, maze.endCell)) return false;
-        return Arrays.deepEquals(mazeGrid, maze.mazeGrid);
+        if (startIndex != maze.startIndex) return false;
+        if (endIndex != maze.endIndex) return false;
+        if (!Arrays.equals(terrain, maze.terrain)) return false;
+        return Arrays.equals(walls, maze.walls);
     }
 
     @Override
     public int hashCode() {
         int result = height;
         result = 31 * result + width;
-        result = 31 * result + (startCell != null ? startCell.hashCode() : 0);
-        result = 31 * result + (endCell != null ? endCell.hashCode() : 0);
-        result = 31 * result + Arrays.deepHashCode(mazeGrid);
+        result = 31 * result + startIndex;
+        result = 31 * result + endIndex;
+        result = 31 * result + Long.hashCode(getFingerprint());
         return result;
     }
 
     public Cell getEndCell() {
-        return endCell;
+        return (endIndex != NO_CELL) ? cellAt(endIndex) : null;
     }
 
+    /**
+     * Builds a matrix of the maze cells indexed as [x][y].
+     * The maze does not store cells, so every call allocates all of them: prefer {@link #getCell(int, int)}
+     * or {@link #getType(int, int)} to inspect single cells.
+     *
+     * @return a new matrix containing all the maze cells.
+     */
     public Cell[][] getMazeGrid() {
-        return mazeGrid;
+        Cell[][] grid = new Cell[width][height];
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < height; j++) {
+                grid[i][j] = new Cell(i, j, getType(i, j));
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Creates the cell located at the specified position.
+     *
+     * @return a new cell with the type the maze has at (x, y).
+     * @throws IndexOutOfBoundsException if the position is outside the maze.
+     */
+    public Cell getCell(int x, int y) {
+        return new Cell(x, y, getType(x, y));
+    }
+
+    /**
+     * Finds the type of the cell located at the specified position.
+     *
+     * @throws IndexOutOfBoundsException if the position is outside the maze.
+     */
+    public Cell.Type getType(int x, int y) {
+        checkBounds(x, y);
+        return typeAt(y * width + x);
+    }
+
+    /**
+     * Checks whether the cell located at the specified position is a wall.
+     *
+     * @throws IndexOutOfBoundsException if the position is outside the maze.
+     */
+    public boolean isWall(int x, int y) {
+        checkBounds(x, y);
+        return isWall(y * width + x);
+    }
+
+    /**
+     * Changes the type of the cell located at the specified position.
+     * Placing the start or the end point moves it from its previous position, which becomes a path cell.
+     *
+     * @throws IndexOutOfBoundsException if the position is outside the maze.
+     */
+    public void setType(int x, int y, Cell.Type type) {
+        checkBounds(x, y);
+        final int index = y * width + x;
+        final boolean wasWall = isWall(index);
+        final long oldFingerprint = hasFingerprint ? fingerprintOf(index) : 0;
+        final int oldCost = costAt(index);
+        setTerrain(index, type);
+        if (index == startIndex)
+            startIndex = NO_CELL;
+        if (index == endIndex)
+            endIndex = NO_CELL;
+        switch (type) {
+            case WALL:
+                setBit(walls, index);
+                break;
+            case START:
+                startIndex = index;
+                clearBit(walls, index);
+                break;
+            case END:
+                endIndex = index;
+                clearBit(walls, index);
+                break;
+            default:
+                clearBit(walls, index);
+        }
+        if (hasFingerprint)
+            fingerprint ^= oldFingerprint ^ fingerprintOf(index);
+        final boolean wallChanged = wasWall != isWall(index);
+        if (wallChanged || costAt(index) != oldCost)
+            modCount++;
+        if (!wallChanged)
+            return;
+        if (connectivity != null) {
+            if (wasWall)
+                connectivity.cellOpened(index);
+            else
+                connectivity.cellClosed(index);
+        }
+        if (hierarchicalPlanner != null)
+            hierarchicalPlanner.wallChanged(x, y);
+    }
+
+    /**
+     * Stores the extra cost of the cell type, allocating the terrain array on the first weighted cell
+     * and dropping it when the last one is gone.
+     */
+    private void setTerrain(int index, Cell.Type type) {
+        final int extraCost = (type.getCost() > 1) ? type.getCost() - 1 : 0;
+        final int oldExtraCost = (terrain != null) ? terrain[index] : 0;
+        if (extraCost == oldExtraCost)
+            return;
+        if (terrain == null)
+            terrain = new byte[height * width];
+        terrain[index] = (byte) extraCost;
+        if (oldExtraCost == 0)
+            terrainCells++;
+        else if (extraCost == 0 && --terrainCells == 0)
+            terrain = null;
+    }
+
+    /**
+     * Finds the terrain cell type having the specified extra cost.
+     *
+     * @return the type found or null if there is none.
+     */
+    static Cell.Type terrainType(int extraCost) {
+        if (extraCost == Cell.Type.MUD.getCost() - 1)
+            return Cell.Type.MUD;
+        if (extraCost == Cell.Type.DOOR.getCost() - 1)
+            return Cell.Type.DOOR;
+        return null;
+    }
+
+    private void checkBounds(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            throw new IndexOutOfBoundsException("Cell (" + x + ", " + y + ") is outside the maze");
+    }
+
+    boolean isWall(int index) {
+        return testBit(walls, index);
+    }
+
+    Cell.Type typeAt(int index) {
+        if (isWall(index))
+            return Cell.Type.WALL;
+        else if (index == startIndex)
+            return Cell.Type.START;
+        else if (index == endIndex)
+            return Cell.Type.END;
+        else if (terrain != null && terrain[index] != 0)
+            return terrainType(terrain[index]);
+        return Cell.Type.PATH;
+    }
+
+    Cell cellAt(int index) {
+        return new Cell(index % width, index / width, typeAt(index));
+    }
+
+    int getStartIndex() {
+        return startIndex;
+    }
+
+    int getEndIndex() {
+        return endIndex;
+    }
+
+    long[] getWalls() {
+        return walls;
+    }
+
+    /**
+     * @return the extra cost of a move into every cell, or null if all the cells are plain.
+     */
+    byte[] getTerrain() {
+        return terrain;
+    }
+
+    /**
+     * @return the cost of a move into the open cell.
+     */
+    int costAt(int index) {
+        return (terrain != null) ? terrain[index] + 1 : 1;
+    }
+
+    /**
+     * Checks whether the maze has cells costing more than a plain one to enter, such as mud or doors.
+     */
+    public boolean hasTerrain() {
+        return terrain != null;
+    }
+
+    /**
+     * @return the number of cells costing more than a plain one to enter.
+     */
+    int getTerrainCellCount() {
+        return terrainCells;
+    }
+
+    int getModCount() {
+        return modCount;
     }
 
     /**
@@ -77,21 +511,66 @@ public class Maze {
      */
     public Set<Cell> getNeighbours(Cell cell) {
         Set<Cell> set = new HashSet<>();
-        if (cell.x - 1 >= 0 && mazeGrid[cell.x - 1][cell.y].type != Cell.Type.WALL) { // Left neighbour
-            set.add(mazeGrid[cell.x - 1][cell.y]);
+        final int index = cell.y * width + cell.x;
+        if (cell.x - 1 >= 0 && !isWall(index - 1)) { // Left neighbour
+            set.add(cellAt(index - 1));
         }
-        if (cell.x + 1 < width && mazeGrid[cell.x + 1][cell.y].type != Cell.Type.WALL) { // Right neighbour
-            set.add(mazeGrid[cell.x + 1][cell.y]);
+        if (cell.x + 1 < width && !isWall(index + 1)) { // Right neighbour
+            set.add(cellAt(index + 1));
         }
-        if (cell.y - 1 >= 0 && mazeGrid[cell.x][cell.y - 1].type != Cell.Type.WALL) { // Down neighbour
-            set.add(mazeGrid[cell.x][cell.y - 1]);
+        if (cell.y - 1 >= 0 && !isWall(index - width)) { // Down neighbour
+            set.add(cellAt(index - width));
         }
-        if (cell.y + 1 < height && mazeGrid[cell.x][cell.y + 1].type != Cell.Type.WALL) { // Up neighbour
-            set.add(mazeGrid[cell.x][cell.y + 1]);
+        if (cell.y + 1 < height && !isWall(index + width)) { // Up neighbour
+            set.add(cellAt(index + width));
         }
         return set;
     }
 
+    /**
+     * Finds the indices of all the neighbours of the specified cell.
+     * The neighbours are always listed in the same order (up, down, right, left), which makes the solvers deterministic.
+     *
+     * @param index linear index of a cell.
+     * @param out   an array of at least 4 elements to store the neighbour indices in.
+     * @return the number of neighbours found.
+     */
+    int neighbours(int index, int[] out) {
+        final int y = index / width;
+        final int x = index - y * width;
+        int count = 0;
+        if (y + 1 < height && !isWall(index + width)) // Up neighbour
+            out[count++] = index + width;
+        if (y - 1 >= 0 && !isWall(index - width)) // Down neighbour
+            out[count++] = index - width;
+        if (x + 1 < width && !isWall(index + 1)) // Right neighbour
+            out[count++] = index + 1;
+        if (x - 1 >= 0 && !isWall(index - 1)) // Left neighbour
+            out[count++] = index - 1;
+        return count;
+    }
+
+    /**
+     * Restores the path found by a solver.
+     *
+     * @param cameFrom an array storing the index of the previous cell of the path for every reached cell.
+     * @param start    the index of the first cell of the path.
+     * @param end      the index of the last cell of the path.
+     * @return a list containing all the cells included in the path.
+     */
+    List<Cell> tracePath(int[] cameFrom, int start, int end) {
+        int length = 1;
+        for (int current = end; current != start; current = cameFrom[current])
+            length++;
+        Cell[] path = new Cell[length];
+        int current = end;
+        for (int i = length - 1; i >= 0; i--) {
+            path[i] = cellAt(current);
+            current = cameFrom[current];
+        }
+        return Arrays.asList(path);
+    }
+
     /**
      * Computes the estimated cost of the cheapest path from the cell to the goal.
      *
@@ -99,85 +578,147 @@ public class Maze {
      * @return estimated distance to the goal.
      */
     public double getHeuristics(Cell cell) {
-        return cell.distanceTo(endCell);
+        return cell.distanceTo(getEndCell());
     }
 
     /**
-     * Finds the shortest path from the start point to the end point using the A* algorithm.
+     * Finds the shortest path from the start point to the end point.
+     * The algorithm is chosen automatically from the maze statistics.
      *
      * @return a list containing all the cells included in the path.
      * @throws IllegalArgumentException if the shortest path cannot be found.
      */
     public List<Cell> solve() throws IllegalArgumentException {
-        if (startCell == null || endCell == null)
-            throw new IllegalArgumentException("Both start and end points must be set!");
-        final int inf = Integer.max(height, width) + 1;
-        Map<Cell, Integer> cost = new HashMap<>(); // the cost of the cheapest path from start to a cell
-        PriorityQueue<Cell> toVisit =
-                new PriorityQueue<>(Comparator.comparingDouble(value -> getHeuristics(value) + cost.getOrDefault(value, inf)));
-        toVisit.add(startCell);
-        Set<Cell> visited = new HashSet<>();
-        Map<Cell, Cell> cameFrom = new HashMap<>();
-        cost.put(startCell, 0);
-        while (!toVisit.isEmpty()) {
-            Cell current = toVisit.poll();
-            if (current.equals(endCell)) {
-                LinkedList<Cell> path = new LinkedList<>();
-                path.addFirst(current);
-                while (cameFrom.containsKey(current)) {
-                    current = cameFrom.get(current);
-                    path.addFirst(current);
-                }
-                return path;
-            }
-            visited.add(current);
-            Set<Cell> ns = getNeighbours(current);
-            for (Cell neighbor : ns) {
-                int score = cost.getOrDefault(current, inf) + 1;
-                if (score < cost.getOrDefault(neighbor, inf) || !visited.contains(neighbor)) {
-                    cameFrom.put(neighbor, current);
-                    cost.put(neighbor, score);
-                    if (!toVisit.contains(neighbor))
-                        toVisit.add(neighbor);
-                }
+        return solve(Algorithm.AUTO);
+    }
 
-            }
+    /**
+     * Finds the shortest path from the start point to the end point using the specified algorithm.
+     *
+     * @param algorithm the algorithm to be used.
+     * @return a list containing all the cells included in the path.
+     * @throws IllegalArgumentException if the shortest path cannot be found.
+     */
+    public List<Cell> solve(Algorithm algorithm) throws IllegalArgumentException {
+        return solve(algorithm, new SearchMonitor());
+    }
+
+    /**
+     * Finds the shortest path from the start point to the end point using the specified algorithm.
+     * The statistics of the search are then available from the monitor and recorded in the {@link MetricsRegistry}.
+     *
+     * @param algorithm the algorithm to be used.
+     * @param monitor   the monitor the search reports its progress to.
+     * @return a list containing all the cells included in the path.
+     * @throws IllegalArgumentException if the shortest path cannot be found.
+     */
+    public List<Cell> solve(Algorithm algorithm, SearchMonitor monitor) throws IllegalArgumentException {
+        if (startIndex == NO_CELL || endIndex == NO_CELL)
+            throw new IllegalArgumentException("Both start and end points must be set!");
+        final long startTime = System.nanoTime();
+        try {
+            if (isKnownUnreachable())
+                throw new IllegalArgumentException("No path between start and end point exists!");
+            List<Cell> path = algorithm.getSolver().solve(this, monitor);
+            monitor.finished(algorithm, path.size(), System.nanoTime() - startTime);
+            return path;
+        } catch (IllegalArgumentException e) {
+            monitor.finished(algorithm, -1, System.nanoTime() - startTime);
+            throw e;
         }
-        throw new IllegalArgumentException("No path between start and end point exists!");
     }
 
     /**
-     * Creates a random maze.
+     * Checks whether the end point can be reached from the start point without running a search.
+     *
+     * @return {@code true} if both points are set and connected.
+     */
+    public boolean hasPath() {
+        return startIndex != NO_CELL && endIndex != NO_CELL && getConnectivity().connected(startIndex, endIndex);
+    }
+
+    /**
+     * Checks whether the end point is known to be unreachable from the start point without building anything.
+     * The connectivity index takes two ints per cell and a pass over the whole maze, so it is only built on demand
+     * by {@link #hasPath()}, e.g. by the editor or a live planner, and then kept up to date with the walls.
+     *
+     * @return {@code true} if the index exists and the points are not connected; {@code false} means unknown.
+     */
+    boolean isKnownUnreachable() {
+        return connectivity != null && !connectivity.connected(startIndex, endIndex);
+    }
+
+    /**
+     * Provides the costs of the cheapest paths from every cell to the end point. The field is computed once
+     * and reused until a wall is added or removed, the terrain changes or the end point is moved.
+     *
+     * @return the distance field towards the current end point.
+     * @throws IllegalArgumentException if the end point is not set.
+     */
+    public DistanceField getDistanceField() throws IllegalArgumentException {
+        if (distanceField == null || !distanceField.isValid())
+            distanceField = new DistanceField(this);
+        return distanceField;
+    }
+
+    /**
+     * Provides the hierarchical planner of the maze. The planner is built once, and every wall added or removed
+     * then rebuilds only the clusters around it; the start and end points are attached to it on every query.
+     */
+    HierarchicalPlanner getHierarchicalPlanner() {
+        if (hierarchicalPlanner == null)
+            hierarchicalPlanner = new HierarchicalPlanner(this);
+        return hierarchicalPlanner;
+    }
+
+    /**
+     * @return the hierarchical planner kept up to date by {@link #setType}, or null if none has been built.
+     */
+    HierarchicalPlanner peekHierarchicalPlanner() {
+        return hierarchicalPlanner;
+    }
+
+    private ConnectivityIndex getConnectivity() {
+        if (connectivity == null)
+            connectivity = new ConnectivityIndex(this);
+        return connectivity;
+    }
+
+    /**
+     * Creates a random maze of a small size.
      *
      * @return randomly generated maze.
      */
     public static Maze random() {
         Random random = new Random();
-        int height = Math.max(random.nextInt(MAX_SIZE), MIN_SIZE);
-        int width = Math.max(random.nextInt(MAX_SIZE), MIN_SIZE);
-
-        Cell start = new Cell(random.nextInt(width), random.nextInt(height), Cell.Type.START);
+        int height = Math.max(random.nextInt(RANDOM_MAX_SIZE), RANDOM_MIN_SIZE);
+        int width = Math.max(random.nextInt(RANDOM_MAX_SIZE), RANDOM_MIN_SIZE);
+        return random(height, width, random);
+    }
 
-        int endX = random.nextInt(width);
-        while (endX == start.x)
-            endX = random.nextInt(width);
+    /**
+     * Creates a random maze of the specified size, making every cell a wall with the probability of 1/2.
+     *
+     * @return randomly generated maze.
+     * @throws IllegalArgumentException if the size is out of {@link MazeLimits} or the maze has only one cell.
+     */
+    public static Maze random(int height, int width, Random random) {
+        MazeLimits.check(height, width);
+        final int size = height * width;
+        if (size < 2)
+            throw new IllegalArgumentException("The maze must have room for both start and end points");
 
-        Cell end = new Cell(endX, random.nextInt(height), Cell.Type.END);
+        final int start = random.nextInt(size);
+        int end = random.nextInt(size);
+        while (end == start)
+            end = random.nextInt(size);
 
-        Cell[][] grid = new Cell[width][height];
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                Cell.Type type;
-                if (start.x == i && start.y == j)
-                    type = Cell.Type.START;
-                else if (end.x == i && end.y == j)
-                    type = Cell.Type.END;
-                else
-                    type = (random.nextBoolean()) ? Cell.Type.WALL : Cell.Type.PATH;
-                grid[i][j] = new Cell(i, j, type);
-            }
+        long[] walls = new long[wordCount(height, width)];
+        for (int i = 0; i < size; i++) {
+            if (i != start && i != end && random.nextBoolean())
+                setBit(walls, i);
         }
-        return new Maze(height, width, start, end, grid);
+        return new Maze(height, width, start, end, walls);
     }
 
     @Override
@@ -189,7 +730,7 @@ public class Maze {
             sb.append("*");
             for (int j = 0; j < width; j++) {
                 sb.append(' ');
-                sb.append(mazeGrid[j][i]);
+                sb.append(typeAt(i * width + j));
             }
             sb.append(" *\n");
         }
@@ -0,0 +1,19 @@
+package ru.spbstu.shortestmazepath.model;
+
+/**
+ * A maze generation algorithm. Implementations may keep per-call state, so an instance should not be shared
+ * between threads.
+ */
+public interface MazeGenerator {
+
+    /**
+     * Creates a maze of the specified size. The same seed always gives the same maze.
+     *
+     * @param height the number of rows.
+     * @param width  the number of columns.
+     * @param seed   the seed of the random number generator.
+     * @return the generated maze with both start and end points set.
+     * @throws IllegalArgumentException if the size is out of {@link MazeLimits} or is too small for the algorithm.
+     */
+    Maze generate(int height, int width, long seed) throws IllegalArgumentException;
+}
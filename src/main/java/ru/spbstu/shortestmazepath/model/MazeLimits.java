@@ -0,0 +1,65 @@
+package ru.spbstu.shortestmazepath.model;
+
+/**
+ * Size limits applied to the mazes created by the model.
+ * The defaults can be changed with the "maze.minSize" and "maze.maxSize" system properties or at runtime.
+ */
+public class MazeLimits {
+
+    /**
+     * The largest number of cells a maze can have: solvers keep per-cell state in arrays indexed by int.
+     */
+    public static final int MAX_CELLS = Integer.MAX_VALUE - 8;
+
+    private static volatile int minSize = Integer.getInteger("maze.minSize", 1);
+    private static volatile int maxSize = Integer.getInteger("maze.maxSize", 65536);
+
+    public static int getMinSize() {
+        return minSize;
+    }
+
+    public static int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Changes the limits for both maze sides.
+     *
+     * @throws IllegalArgumentException if the limits are not positive or the minimal one exceeds the maximum one.
+     */
+    public static void setSizeLimits(int minSize, int maxSize) {
+        if (minSize < 1 || minSize > maxSize)
+            throw new IllegalArgumentException("Wrong size limits: " + minSize + ", " + maxSize);
+        MazeLimits.minSize = minSize;
+        MazeLimits.maxSize = maxSize;
+    }
+
+    /**
+     * Checks whether the maze of the specified size can be created.
+     *
+     * @throws IllegalArgumentException if the size is out of limits.
+     */
+    public static void check(long height, long width) {
+        final int min = minSize;
+        final int max = maxSize;
+        if (height < min || height > max || width < min || width > max)
+            throw new IllegalArgumentException("Wrong maze size is specified. Minimal size is " + min + ", maximum size is " + max);
+        if (height * width > MAX_CELLS)
+            throw new IllegalArgumentException("Wrong maze size is specified. A maze can have at most " + MAX_CELLS + " cells");
+    }
+
+    /**
+     * Checks whether the costs of the paths in the maze can be summed up in ints, as the solvers do.
+     * No path enters a cell twice, so no path costs more than entering every cell, and an A* f-score adds
+     * the Manhattan distance to it. Only mazes of hundreds of millions of cells with plenty of terrain exceed that.
+     *
+     * @throws ArithmeticException if the costs may overflow an int.
+     */
+    static void checkPathCosts(Maze maze) throws ArithmeticException {
+        final long maxScore = (long) maze.getHeight() * maze.getWidth()
+                + (long) (Cell.Type.DOOR.getCost() - 1) * maze.getTerrainCellCount()
+                + maze.getWidth() + maze.getHeight();
+        if (maxScore >= Integer.MAX_VALUE)
+            throw new ArithmeticException("The path costs of the maze may exceed " + Integer.MAX_VALUE);
+    }
+}
@@ -1,88 +1,123 @@
 package ru.spbstu.shortestmazepath.model;
 
-import ru.spbstu.shortestmazepath.controller.MazeController;
-
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Arrays;
 
 /**
  * A helper class to load/save mazes from/to the filesystem.
  */
 public class MazeManager {
 
-    private static final int MIN_SIZE = MazeController.MIN_MAZE_SIZE;
-    private static final int MAX_SIZE = MazeController.MAX_MAZE_SIZE;
+    /**
+     * Describes a maze file format.
+     */
+    public enum Format {
+        TEXT(".maze"),
+        BINARY(".mazeb"),
+        COMPRESSED(".mazez");
 
-    public static void save(Maze maze, File outputFile) throws IOException {
-        List<String> lines = new ArrayList<>();
-        lines.add(maze.getHeight() + "x" + maze.getWidth());
-        for (int i = 0; i < maze.getHeight(); i++) {
-            StringBuilder sb = new StringBuilder();
-            for (int j = 0; j < maze.getWidth(); j++) {
-                sb.append(maze.getMazeGrid()[j][i].type.toString());
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Finds the format by the file extension.
+         *
+         * @return the format matching the file name, {@link #TEXT} if there is none.
+         */
+        public static Format of(File file) {
+            final String name = file.getName().toLowerCase();
+            for (Format format : values()) {
+                if (format != TEXT && name.endsWith(format.extension))
+                    return format;
             }
-            lines.add(sb.toString());
+            return TEXT;
         }
-        Files.write(outputFile.toPath(), lines);
     }
 
-    public static Maze load(File inputFile) throws IOException, IllegalArgumentException {
-        List<String> lines = Files.readAllLines(inputFile.toPath()).stream().filter(s -> !s.isBlank()).collect(Collectors.toList());
-        if (lines.size() < 2)
-            throw new IllegalArgumentException("File is not formatted properly");
-        String size = lines.get(0);
-        lines.remove(0);
-        if (!size.matches("\\d+x\\d+"))
-            throw new IllegalArgumentException("Maze size is not specified");
-        final int height = Integer.parseInt(size.split("x")[0]);
-        final int width = Integer.parseInt(size.split("x")[1]);
-        if (height < MIN_SIZE || height > MAX_SIZE || width < MIN_SIZE || width > MAX_SIZE)
-            throw new IllegalArgumentException("Wrong maze size is specified. Minimal size is " + MIN_SIZE + ", maximum size is " + MAX_SIZE);
-        if (!lines.stream().allMatch(s -> s.length() == width))
-            throw new IllegalArgumentException("Maze does not match the specified size");
-        Cell startCell = null;
-        Cell endCell = null;
-        Cell[][] maze = new Cell[width][height];
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                char current;
-                try {
-                    current = lines.get(i).charAt(j);
-                } catch (IndexOutOfBoundsException e) {
-                    throw new IllegalArgumentException("Maze does not match the specified size");
-                }
-                Cell.Type t;
-                switch (current) {
-                    case 'S':
-                        t = Cell.Type.START;
-                        break;
-                    case 'E':
-                        t = Cell.Type.END;
-                        break;
-                    case '#':
-                        t = Cell.Type.WALL;
-                        break;
-                    case '.':
-                        t = Cell.Type.PATH;
-                        break;
-                    default:
-                        throw new IllegalArgumentException("Incorrect symbol at (" + j + ", " + i + "): " + current);
-                }
-                Cell c = new Cell(j, i, t);
-                if (t == Cell.Type.START) {
-                    if (startCell != null) throw new IllegalArgumentException("More than one start cell specified");
-                    startCell = c;
-                } else if (t == Cell.Type.END) {
-                    if (endCell != null) throw new IllegalArgumentException("More than one end cell specified");
-                    endCell = c;
+    /**
+     * Saves the maze in the format matching the file extension.
+     */
+    public static void save(Maze maze, File outputFile) throws IOException {
+        save(maze, outputFile, Format.of(outputFile));
+    }
+
+    public static void save(Maze maze, File outputFile, Format format) throws IOException {
+        switch (format) {
+            case TEXT:
+                saveText(maze, outputFile);
+                break;
+            case BINARY:
+                BinaryMazeFormat.save(maze, outputFile);
+                break;
+            case COMPRESSED:
+                CompressedMazeFormat.save(maze, outputFile);
+                break;
+            default:
+                throw new IllegalStateException("Unexpected value: " + format);
+        }
+    }
+
+    private static void saveText(Maze maze, File outputFile) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(outputFile.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(maze.getHeight() + "x" + maze.getWidth());
+            writer.newLine();
+            char[] line = new char[maze.getWidth()];
+            for (int i = 0; i < maze.getHeight(); i++) {
+                for (int j = 0; j < maze.getWidth(); j++) {
+                    line[j] = maze.typeAt(i * maze.getWidth() + j).toString().charAt(0);
                 }
-                maze[j][i] = c;
+                writer.write(line);
+                writer.newLine();
             }
         }
-        return new Maze(height, width, startCell, endCell, maze);
+    }
+
+    /**
+     * Loads a maze from the file, detecting its format by the contents.
+     *
+     * @throws IllegalArgumentException if the file is not formatted properly.
+     */
+    public static Maze load(File inputFile) throws IOException, IllegalArgumentException {
+        switch (detectFormat(inputFile)) {
+            case BINARY:
+                return BinaryMazeFormat.load(inputFile);
+            case COMPRESSED:
+                return CompressedMazeFormat.load(inputFile);
+            default:
+                return loadText(inputFile);
+        }
+    }
+
+    /**
+     * Loads a maze from the text file in a single pass.
+     */
+    private static Maze loadText(File inputFile) throws IOException, IllegalArgumentException {
+        try (Reader reader = Files.newBufferedReader(inputFile.toPath(), StandardCharsets.UTF_8)) {
+            return new TextMazeParser().parse(reader);
+        }
+    }
+
+    private static Format detectFormat(File inputFile) throws IOException {
+        try (InputStream stream = Files.newInputStream(inputFile.toPath())) {
+            final byte[] magic = stream.readNBytes(BinaryMazeFormat.MAGIC.length);
+            if (Arrays.equals(magic, BinaryMazeFormat.MAGIC))
+                return Format.BINARY;
+            if (Arrays.equals(magic, CompressedMazeFormat.MAGIC))
+                return Format.COMPRESSED;
+            return Format.TEXT;
+        }
     }
 }
@@ -0,0 +1,30 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.List;
+
+/**
+ * A path finding engine. Implementations may keep per-call state, so an instance should not be shared between threads.
+ */
+public interface MazeSolver {
+
+    /**
+     * Finds the shortest path from the start point to the end point of the maze.
+     *
+     * @param maze the maze to be solved.
+     * @return a list containing all the cells included in the path.
+     * @throws IllegalArgumentException if the shortest path cannot be found.
+     */
+    default List<Cell> solve(Maze maze) throws IllegalArgumentException {
+        return solve(maze, new SearchMonitor());
+    }
+
+    /**
+     * Finds the shortest path from the start point to the end point of the maze, reporting the progress.
+     *
+     * @param maze    the maze to be solved.
+     * @param monitor the monitor the search reports to.
+     * @return a list containing all the cells included in the path.
+     * @throws IllegalArgumentException if the shortest path cannot be found.
+     */
+    List<Cell> solve(Maze maze, SearchMonitor monitor) throws IllegalArgumentException;
+}
@@ -0,0 +1,54 @@
+package ru.spbstu.shortestmazepath.model;
+
+/**
+ * Cheap statistics of a maze used to choose a solver. Computing them takes one pass over the wall bitmap.
+ */
+public class MazeStatistics {
+    private final int cellCount;
+    private final int wallCount;
+    private final int startEndDistance;
+    private final boolean terrain;
+
+    public MazeStatistics(Maze maze) {
+        cellCount = maze.getWidth() * maze.getHeight();
+        int walls = 0;
+        for (long word : maze.getWalls())
+            walls += Long.bitCount(word);
+        wallCount = walls;
+        terrain = maze.hasTerrain();
+        final int start = maze.getStartIndex();
+        final int end = maze.getEndIndex();
+        final int width = maze.getWidth();
+        startEndDistance = (start == Maze.NO_CELL || end == Maze.NO_CELL) ? -1 :
+                Math.abs(start % width - end % width) + Math.abs(start / width - end / width);
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    public int getWallCount() {
+        return wallCount;
+    }
+
+    /**
+     * @return the share of wall cells, from 0 to 1.
+     */
+    public double getWallDensity() {
+        return (cellCount == 0) ? 0 : (double) wallCount / cellCount;
+    }
+
+    /**
+     * @return the Manhattan distance between the start and the end point or -1 if any of them is not set.
+     */
+    public int getStartEndDistance() {
+        return startEndDistance;
+    }
+
+    /**
+     * @return whether the maze has cells costing more than a plain one to enter.
+     */
+    public boolean hasTerrain() {
+        return terrain;
+    }
+}
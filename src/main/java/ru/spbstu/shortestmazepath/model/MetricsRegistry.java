@@ -0,0 +1,103 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the searches run through {@link Maze#solve(Algorithm, SearchMonitor)}. Every finished search is
+ * recorded in the registry of its {@link SearchMonitor}, the process-wide {@link #getDefault()} one unless specified,
+ * whichever thread it runs in.
+ * The searches which have not found a path are counted, and their path length is not recorded.
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private final AtomicLong solves = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final Histogram expandedNodes = new Histogram();
+    private final Histogram generatedNodes = new Histogram();
+    private final Histogram peakOpenSetSize = new Histogram();
+    private final Histogram pathLength = new Histogram();
+    private final Histogram nanos = new Histogram();
+
+    /**
+     * Creates a registry separate from the default one.
+     */
+    public MetricsRegistry() {
+    }
+
+    /**
+     * @return the registry the searches are recorded in unless their monitors specify another one.
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    void record(SolverStats stats) {
+        solves.incrementAndGet();
+        expandedNodes.record(stats.getExpandedNodes());
+        generatedNodes.record(stats.getGeneratedNodes());
+        peakOpenSetSize.record(stats.getPeakOpenSetSize());
+        nanos.record(stats.getNanos());
+        if (stats.isSolved())
+            pathLength.record(stats.getPathLength());
+        else
+            failures.incrementAndGet();
+    }
+
+    /**
+     * @return the number of searches finished, with or without a path.
+     */
+    public long getSolveCount() {
+        return solves.get();
+    }
+
+    /**
+     * @return the number of searches which have not found a path.
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    public Histogram getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    public Histogram getGeneratedNodes() {
+        return generatedNodes;
+    }
+
+    public Histogram getPeakOpenSetSize() {
+        return peakOpenSetSize;
+    }
+
+    public Histogram getPathLength() {
+        return pathLength;
+    }
+
+    public Histogram getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Forgets all the searches recorded so far.
+     */
+    public void reset() {
+        solves.set(0);
+        failures.set(0);
+        for (Histogram histogram : new Histogram[]{expandedNodes, generatedNodes, peakOpenSetSize, pathLength, nanos})
+            histogram.reset();
+    }
+
+    /**
+     * @return a human-readable summary of the searches, one line per histogram.
+     */
+    public String report() {
+        return "Searches: " + getSolveCount() + ", without a path: " + getFailureCount() + '\n'
+                + "Expanded nodes: " + expandedNodes + '\n'
+                + "Generated nodes: " + generatedNodes + '\n'
+                + "Peak open set size: " + peakOpenSetSize + '\n'
+                + "Path length: " + pathLength + '\n'
+                + "Solve time, ns: " + nanos;
+    }
+}
@@ -0,0 +1,148 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Finds the shortest path with a level-synchronous breadth-first search running on the fork-join pool.
+ * Every frontier is split into chunks expanded in parallel. The cells are claimed by setting their bits
+ * of a shared visited bitmap with compare-and-set, so every cell gets exactly one parent.
+ * Smaller mazes are solved with the sequential {@link BfsSolver}, as the tasks would cost more than the search.
+ */
+class ParallelBfsSolver implements MazeSolver {
+
+    /**
+     * Mazes with fewer cells are solved sequentially.
+     */
+    static final int SEQUENTIAL_THRESHOLD = 1 << 20;
+    /**
+     * The number of frontier cells a single task expands.
+     */
+    private static final int CHUNK_SIZE = 2048;
+
+    private final int threshold;
+
+    ParallelBfsSolver() {
+        this(SEQUENTIAL_THRESHOLD);
+    }
+
+    /**
+     * @param threshold the number of cells starting from which the search runs in parallel.
+     */
+    ParallelBfsSolver(int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public List<Cell> solve(Maze maze, SearchMonitor monitor) throws IllegalArgumentException {
+        final int start = maze.getStartIndex();
+        final int end = maze.getEndIndex();
+        if (start == Maze.NO_CELL || end == Maze.NO_CELL)
+            throw new IllegalArgumentException("Both start and end points must be set!");
+        final int size = maze.getWidth() * maze.getHeight();
+        if (size < threshold)
+            return new BfsSolver().solve(maze, monitor);
+
+        AtomicLongArray visited = new AtomicLongArray(Maze.wordCount(maze.getHeight(), maze.getWidth()));
+        int[] cameFrom = new int[size];
+        int[] frontier = {start};
+        claim(visited, start);
+        cameFrom[start] = start;
+        monitor.generated(1);
+        while (frontier.length > 0) {
+            if (isSet(visited, end))
+                return maze.tracePath(cameFrom, start, end);
+            monitor.expanded(frontier.length);
+            frontier = expand(maze, visited, cameFrom, frontier);
+            monitor.generated(frontier.length, frontier.length);
+        }
+        throw new IllegalArgumentException("No path between start and end point exists!");
+    }
+
+    /**
+     * Expands the whole frontier, one task per chunk, and gathers the next level in the order of the chunks.
+     */
+    private static int[] expand(Maze maze, AtomicLongArray visited, int[] cameFrom, int[] frontier) {
+        Expansion[] tasks = new Expansion[(frontier.length + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        for (int i = 0; i < tasks.length; i++) {
+            final int from = i * CHUNK_SIZE;
+            tasks[i] = new Expansion(maze, visited, cameFrom, frontier, from, Math.min(from + CHUNK_SIZE, frontier.length));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        int total = 0;
+        for (Expansion task : tasks)
+            total += task.count;
+        int[] next = new int[total];
+        int position = 0;
+        for (Expansion task : tasks) {
+            System.arraycopy(task.next, 0, next, position, task.count);
+            position += task.count;
+        }
+        return next;
+    }
+
+    /**
+     * Sets the bit of the cell unless another thread has already done it.
+     *
+     * @return {@code true} if the bit has been set by this call.
+     */
+    private static boolean claim(AtomicLongArray bits, int index) {
+        final int word = index >>> 6;
+        final long mask = 1L << index;
+        long old = bits.get(word);
+        while ((old & mask) == 0) {
+            if (bits.compareAndSet(word, old, old | mask))
+                return true;
+            old = bits.get(word);
+        }
+        return false;
+    }
+
+    private static boolean isSet(AtomicLongArray bits, int index) {
+        return (bits.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Expands a chunk of the frontier, producing the cells of the next level discovered from it.
+     */
+    private static class Expansion extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Maze maze;
+        private final AtomicLongArray visited;
+        private final int[] cameFrom;
+        private final int[] frontier;
+        private final int from;
+        private final int to;
+        private int[] next;
+        private int count = 0;
+
+        private Expansion(Maze maze, AtomicLongArray visited, int[] cameFrom, int[] frontier, int from, int to) {
+            this.maze = maze;
+            this.visited = visited;
+            this.cameFrom = cameFrom;
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            next = new int[3 * (to - from) + 1]; // every cell but the first one has been entered from a neighbour
+            int[] neighbours = new int[4];
+            for (int i = from; i < to; i++) {
+                final int current = frontier[i];
+                final int found = maze.neighbours(current, neighbours);
+                for (int k = 0; k < found; k++) {
+                    final int neighbour = neighbours[k];
+                    if (!claim(visited, neighbour))
+                        continue;
+                    cameFrom[neighbour] = current;
+                    next[count++] = neighbour;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Base of the generators of perfect mazes, i.e. mazes having exactly one path between any two open cells.
+ * <p>
+ * The cells with both coordinates even are rooms, and the cells between two adjacent rooms are passages.
+ * The maze starts as solid walls, and the generator carves a spanning tree of the rooms into it,
+ * working directly on the wall bitmap. A room is visited if its cell is not a wall anymore, so no extra memory
+ * is needed to track the visited rooms. The start point is placed in the top left room and the end point
+ * in the bottom right one.
+ */
+abstract class PerfectMazeGenerator implements MazeGenerator {
+
+    /**
+     * Directions in the order used for the neighbours everywhere in the model: up, down, right, left.
+     * The opposite of the direction d is d ^ 1.
+     */
+    static final int DIRECTIONS = 4;
+
+    private int width;
+    private long[] walls;
+    int roomColumns;
+    int roomRows;
+    int rooms;
+
+    @Override
+    public Maze generate(int height, int width, long seed) throws IllegalArgumentException {
+        MazeLimits.check(height, width);
+        this.width = width;
+        roomColumns = (width + 1) / 2;
+        roomRows = (height + 1) / 2;
+        rooms = roomColumns * roomRows;
+        if (rooms < 2)
+            throw new IllegalArgumentException("The maze must have room for both start and end points");
+        walls = new long[Maze.wordCount(height, width)];
+        Maze.setBits(walls, 0, height * width);
+
+        carve(new SplittableRandom(seed));
+        Maze maze = new Maze(height, width, cellOf(0), cellOf(rooms - 1), walls);
+        walls = null;
+        return maze;
+    }
+
+    /**
+     * Carves a spanning tree of all the rooms.
+     */
+    abstract void carve(SplittableRandom random);
+
+    /**
+     * Finds the adjacent room in the specified direction.
+     *
+     * @return the index of the adjacent room or -1 if the room is on the border.
+     */
+    final int neighbour(int room, int direction) {
+        final int column = room % roomColumns;
+        final int row = room / roomColumns;
+        switch (direction) {
+            case 0:
+                return (row + 1 < roomRows) ? room + roomColumns : -1;
+            case 1:
+                return (row > 0) ? room - roomColumns : -1;
+            case 2:
+                return (column + 1 < roomColumns) ? room + 1 : -1;
+            default:
+                return (column > 0) ? room - 1 : -1;
+        }
+    }
+
+    final boolean isCarved(int room) {
+        return !Maze.testBit(walls, cellOf(room));
+    }
+
+    final boolean isCarved(int column, int row) {
+        return !Maze.testBit(walls, row * 2 * width + column * 2);
+    }
+
+    final void carveRoom(int room) {
+        Maze.clearBit(walls, cellOf(room));
+    }
+
+    /**
+     * Removes the wall between the room and its neighbour in the specified direction. The rooms are not carved.
+     */
+    final void carvePassage(int room, int direction) {
+        // Two rooms are two cells apart in the same row or column, so the passage lies right between them.
+        // The sum of two indices may exceed the int range in mazes of over 2^30 cells, hence the unsigned shift
+        Maze.clearBit(walls, (cellOf(room) + cellOf(neighbour(room, direction))) >>> 1);
+    }
+
+    private int cellOf(int room) {
+        return room / roomColumns * 2 * width + room % roomColumns * 2;
+    }
+
+    /**
+     * Reads a direction from an array packing one direction per room into two bits.
+     */
+    static int getDirection(long[] directions, int room) {
+        return (int) (directions[room >>> 5] >>> ((room & 31) << 1)) & 3;
+    }
+
+    static void setDirection(long[] directions, int room, int direction) {
+        final int shift = (room & 31) << 1;
+        directions[room >>> 5] = directions[room >>> 5] & ~(3L << shift) | (long) direction << shift;
+    }
+
+    static long[] newDirections(int rooms) {
+        return new long[(rooms + 31) >>> 5];
+    }
+}
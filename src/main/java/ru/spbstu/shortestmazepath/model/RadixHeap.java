@@ -0,0 +1,104 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A monotone radix heap of integer elements ordered by non-negative integer priorities. Priorities added must not
+ * be less than the last one taken, which holds for Dijkstra's algorithm and for A* with a consistent heuristic.
+ * <p>
+ * An element is put into the bucket numbered by the highest bit in which its priority differs from the last one
+ * taken. Taking an element from an empty bucket 0 moves the elements of the first non-empty bucket to the lower
+ * ones, and every element is moved at most 32 times in total, so both operations take amortized constant time
+ * independent of the heap size. The elements of bucket 0 share a priority and are taken in the reverse order.
+ * <p>
+ * Priorities cannot be changed: an element is added again instead, and the outdated copies are to be skipped
+ * by the caller.
+ */
+class RadixHeap {
+
+    private static final int BUCKETS = Integer.SIZE + 1;
+    private static final int INITIAL_SIZE = 16;
+
+    private final int[][] elements = new int[BUCKETS][];
+    private final int[][] priorities = new int[BUCKETS][];
+    private final int[] sizes = new int[BUCKETS];
+    private int last = 0;
+    private int size = 0;
+
+    RadixHeap() {
+        for (int i = 0; i < BUCKETS; i++) {
+            elements[i] = new int[INITIAL_SIZE];
+            priorities[i] = new int[INITIAL_SIZE];
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the priority is less than the last one taken.
+     */
+    void add(int element, int priority) {
+        if (priority < last)
+            throw new IllegalArgumentException("Priority " + priority + " is less than the last one taken: " + last);
+        put(bucket(priority), element, priority);
+        size++;
+    }
+
+    /**
+     * @return the priority of the last element taken, which is the lowest one in the heap.
+     */
+    int lastPriority() {
+        return last;
+    }
+
+    /**
+     * Takes an element with the lowest priority.
+     *
+     * @throws NoSuchElementException if the heap is empty.
+     */
+    int poll() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        if (sizes[0] == 0) {
+            int from = 1;
+            while (sizes[from] == 0)
+                from++;
+            final int[] fromPriorities = priorities[from];
+            final int[] fromElements = elements[from];
+            final int count = sizes[from];
+            int lowest = fromPriorities[0];
+            for (int i = 1; i < count; i++)
+                lowest = Math.min(lowest, fromPriorities[i]);
+            last = lowest;
+            sizes[from] = 0;
+            // All the elements share the bits above the bucket number with the new last priority,
+            // so every one of them moves to a lower bucket
+            for (int i = 0; i < count; i++)
+                put(bucket(fromPriorities[i]), fromElements[i], fromPriorities[i]);
+        }
+        size--;
+        return elements[0][--sizes[0]];
+    }
+
+    private int bucket(int priority) {
+        return (priority == last) ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros(priority ^ last);
+    }
+
+    private void put(int bucket, int element, int priority) {
+        final int at = sizes[bucket];
+        if (at == elements[bucket].length) {
+            elements[bucket] = Arrays.copyOf(elements[bucket], at * 2);
+            priorities[bucket] = Arrays.copyOf(priorities[bucket], at * 2);
+        }
+        elements[bucket][at] = element;
+        priorities[bucket][at] = priority;
+        sizes[bucket] = at + 1;
+    }
+}
@@ -0,0 +1,146 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Collects the progress of a single search. Solvers report every node they expand and every node they add
+ * to the open set to it. When {@link Maze#solve(Algorithm, SearchMonitor)} finishes, the counters are summed up
+ * in {@link SolverStats}, which are also recorded in a {@link MetricsRegistry}, the default one unless specified.
+ * <p>
+ * The search may run in another thread: its progress can be watched with {@link #getProgress()}
+ * and it can be stopped with {@link #cancel()}. Both are checked once in {@value #CHECK_INTERVAL} expansions,
+ * so the monitor costs the search next to nothing.
+ */
+public class SearchMonitor {
+
+    private static final int CHECK_INTERVAL = 1024;
+
+    private final MetricsRegistry metrics;
+    private long expandedNodes = 0;
+    private long nextCheck = CHECK_INTERVAL;
+    private long generatedNodes = 0;
+    private int peakOpenSetSize = 0;
+    private SolverStats stats = null;
+    private volatile long publishedNodes = 0;
+    private volatile boolean cancelled = false;
+
+    public SearchMonitor() {
+        this(MetricsRegistry.getDefault());
+    }
+
+    /**
+     * @param metrics the registry to record the finished search in.
+     */
+    public SearchMonitor(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @throws CancellationException if the search has been cancelled.
+     */
+    void expanded() {
+        if (++expandedNodes >= nextCheck)
+            checkpoint();
+    }
+
+    /**
+     * @throws CancellationException if the search has been cancelled.
+     */
+    void expanded(int count) {
+        expandedNodes += count;
+        if (expandedNodes >= nextCheck)
+            checkpoint();
+    }
+
+    /**
+     * Reports a node added to the open set.
+     *
+     * @param openSetSize the size of the open set after the node is added.
+     */
+    void generated(int openSetSize) {
+        generatedNodes++;
+        if (openSetSize > peakOpenSetSize)
+            peakOpenSetSize = openSetSize;
+    }
+
+    /**
+     * Reports several nodes added to the open set at once.
+     *
+     * @param openSetSize the size of the open set after the nodes are added.
+     */
+    void generated(int count, int openSetSize) {
+        generatedNodes += count;
+        if (openSetSize > peakOpenSetSize)
+            peakOpenSetSize = openSetSize;
+    }
+
+    /**
+     * Sums up the finished search and records it in the metrics registry of the monitor.
+     *
+     * @param pathLength the number of cells in the path found, or -1 if there is no path.
+     */
+    void finished(Algorithm algorithm, int pathLength, long nanos) {
+        stats = new SolverStats(algorithm, expandedNodes, generatedNodes, peakOpenSetSize, pathLength, nanos);
+        metrics.record(stats);
+    }
+
+    private void checkpoint() {
+        nextCheck = expandedNodes + CHECK_INTERVAL;
+        publishedNodes = expandedNodes;
+        if (cancelled)
+            throw new CancellationException("The search has been cancelled");
+    }
+
+    /**
+     * Asks the search to stop. The search throws {@link CancellationException} soon after.
+     * May be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return the number of nodes the search has taken from its open set so far.
+     * Should be called from the thread running the search or after it has finished.
+     */
+    public long getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /**
+     * @return the number of nodes the search has added to its open set so far.
+     * Should be called from the thread running the search or after it has finished.
+     */
+    public long getGeneratedNodes() {
+        return generatedNodes;
+    }
+
+    /**
+     * @return the largest size the open set has had so far.
+     * Should be called from the thread running the search or after it has finished.
+     */
+    public int getPeakOpenSetSize() {
+        return peakOpenSetSize;
+    }
+
+    /**
+     * @return the statistics of the finished search, or null if the search has not finished through
+     * {@link Maze#solve(Algorithm, SearchMonitor)}, e.g. it has been cancelled or its result has been taken from a cache.
+     */
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Provides the progress of a search running in another thread.
+     *
+     * @return the number of expanded nodes, lagging behind the actual one by less than {@value #CHECK_INTERVAL}.
+     */
+    public long getProgress() {
+        return publishedNodes;
+    }
+}
@@ -0,0 +1,102 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A bounded cache of found paths, evicting the least recently used ones.
+ * Mazes are identified by their size, start and end points and {@link Maze#getFingerprint() wall fingerprint},
+ * so looking a maze up does not compare the walls cell by cell.
+ * The cache is thread-safe and may be shared between solving threads.
+ */
+public class SolutionCache {
+
+    private final Map<Key, List<Cell>> solutions;
+
+    /**
+     * @param capacity the maximum number of paths kept.
+     * @throws IllegalArgumentException if the capacity is not positive.
+     */
+    public SolutionCache(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        solutions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<Cell>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Finds the shortest path from the start point to the end point, reusing the path found earlier
+     * for an identical maze with the same algorithm. A cached path is returned without reporting to the monitor.
+     *
+     * @return an unmodifiable list containing all the cells included in the path.
+     * @throws IllegalArgumentException if the shortest path cannot be found.
+     */
+    public List<Cell> solve(Maze maze, Algorithm algorithm, SearchMonitor monitor) throws IllegalArgumentException {
+        Key key = new Key(maze, algorithm);
+        List<Cell> path;
+        synchronized (solutions) {
+            path = solutions.get(key);
+        }
+        if (path != null)
+            return path;
+        path = Collections.unmodifiableList(maze.solve(algorithm, monitor));
+        synchronized (solutions) {
+            solutions.put(key, path);
+        }
+        return path;
+    }
+
+    /**
+     * @return the number of paths currently kept.
+     */
+    public int size() {
+        synchronized (solutions) {
+            return solutions.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (solutions) {
+            solutions.clear();
+        }
+    }
+
+    private static class Key {
+        private final long fingerprint;
+        private final int height;
+        private final int width;
+        private final int start;
+        private final int end;
+        private final Algorithm algorithm;
+
+        private Key(Maze maze, Algorithm algorithm) {
+            this.fingerprint = maze.getFingerprint();
+            this.height = maze.getHeight();
+            this.width = maze.getWidth();
+            this.start = maze.getStartIndex();
+            this.end = maze.getEndIndex();
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return fingerprint == key.fingerprint && height == key.height && width == key.width
+                    && start == key.start && end == key.end && algorithm == key.algorithm;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fingerprint, height, width, start, end, algorithm);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package ru.spbstu.shortestmazepath.model;
+
+/**
+ * Statistics of a single finished search.
+ */
+public class SolverStats {
+
+    private final Algorithm algorithm;
+    private final long expandedNodes;
+    private final long generatedNodes;
+    private final int peakOpenSetSize;
+    private final int pathLength;
+    private final long nanos;
+
+    SolverStats(Algorithm algorithm, long expandedNodes, long generatedNodes, int peakOpenSetSize, int pathLength,
+                long nanos) {
+        this.algorithm = algorithm;
+        this.expandedNodes = expandedNodes;
+        this.generatedNodes = generatedNodes;
+        this.peakOpenSetSize = peakOpenSetSize;
+        this.pathLength = pathLength;
+        this.nanos = nanos;
+    }
+
+    /**
+     * @return the algorithm the search was asked to use.
+     */
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return the number of nodes taken from the open set.
+     */
+    public long getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /**
+     * @return the number of nodes added to the open set.
+     */
+    public long getGeneratedNodes() {
+        return generatedNodes;
+    }
+
+    /**
+     * @return the largest size of the open set during the search.
+     */
+    public int getPeakOpenSetSize() {
+        return peakOpenSetSize;
+    }
+
+    /**
+     * @return the number of cells in the path found, or -1 if there is no path.
+     */
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    public boolean isSolved() {
+        return pathLength >= 0;
+    }
+
+    /**
+     * @return the wall-clock time of the search in nanoseconds.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "SolverStats{algorithm=" + algorithm.name() + ", expanded=" + expandedNodes + ", generated=" + generatedNodes
+                + ", peakOpenSet=" + peakOpenSetSize + ", pathLength=" + pathLength + ", nanos=" + nanos + '}';
+    }
+}
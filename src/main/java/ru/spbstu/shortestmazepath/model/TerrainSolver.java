@@ -0,0 +1,70 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the cheapest path in a maze with terrain, where a move into a cell costs {@link Cell.Type#getCost()}.
+ * The search is A* with the Manhattan distance heuristic: no move costs less than 1, so the heuristic stays
+ * consistent and the f-scores of the cells taken never decrease. That lets the open set be a {@link RadixHeap},
+ * which is faster than a comparison-based heap on large grids.
+ * <p>
+ * The costs are read straight from the terrain array of the maze, one byte per cell, and summed up in integers like
+ * the other engines do. A cell whose cost improves is added to the heap again, and the outdated copies are skipped
+ * as visited cells.
+ */
+class TerrainSolver implements MazeSolver {
+
+    /**
+     * @throws ArithmeticException if the costs of the paths in the maze may overflow an int,
+     *                             see {@link MazeLimits#checkPathCosts(Maze)}.
+     */
+    @Override
+    public List<Cell> solve(Maze maze, SearchMonitor monitor) throws IllegalArgumentException {
+        final int start = maze.getStartIndex();
+        final int end = maze.getEndIndex();
+        if (start == Maze.NO_CELL || end == Maze.NO_CELL)
+            throw new IllegalArgumentException("Both start and end points must be set!");
+        final int width = maze.getWidth();
+        final int endX = end % width;
+        final int endY = end / width;
+        final int size = width * maze.getHeight();
+        final byte[] terrain = maze.getTerrain();
+        MazeLimits.checkPathCosts(maze);
+
+        int[] cost = new int[size]; // the cost of the cheapest path from start to a cell
+        Arrays.fill(cost, Integer.MAX_VALUE);
+        int[] cameFrom = new int[size];
+        long[] visited = new long[Maze.wordCount(maze.getHeight(), width)];
+        RadixHeap toVisit = new RadixHeap();
+        int[] neighbours = new int[4];
+
+        cost[start] = 0;
+        toVisit.add(start, Math.abs(start % width - endX) + Math.abs(start / width - endY));
+        monitor.generated(1);
+        while (!toVisit.isEmpty()) {
+            final int current = toVisit.poll();
+            if (Maze.testBit(visited, current))
+                continue;
+            monitor.expanded();
+            if (current == end)
+                return maze.tracePath(cameFrom, start, end);
+            Maze.setBit(visited, current);
+            final int currentCost = cost[current];
+            final int count = maze.neighbours(current, neighbours);
+            for (int i = 0; i < count; i++) {
+                final int neighbour = neighbours[i];
+                final int score = currentCost + 1 + ((terrain != null) ? terrain[neighbour] : 0);
+                if (Maze.testBit(visited, neighbour) || score >= cost[neighbour])
+                    continue;
+                final boolean isNew = cost[neighbour] == Integer.MAX_VALUE;
+                cost[neighbour] = score;
+                cameFrom[neighbour] = current;
+                toVisit.add(neighbour, score + Math.abs(neighbour % width - endX) + Math.abs(neighbour / width - endY));
+                if (isNew)
+                    monitor.generated(toVisit.size());
+            }
+        }
+        throw new IllegalArgumentException("No path between start and end point exists!");
+    }
+}
@@ -0,0 +1,162 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A single-pass parser of the text maze format. Characters are read in chunks and written straight into
+ * the wall bitmap, so neither the lines of the file nor any cells are kept in memory.
+ * Blank lines are skipped anywhere in the file.
+ */
+class TextMazeParser {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final StringBuilder header = new StringBuilder();
+    private boolean headerDone = false;
+    private int height;
+    private int width;
+    private long[] walls;
+    private byte[] terrain; // allocated on the first terrain cell
+    private int startIndex = Maze.NO_CELL;
+    private int endIndex = Maze.NO_CELL;
+
+    private int row = 0; // the number of non-blank lines after the header
+    private int column = 0;
+    private int pendingBlanks = 0; // whitespace at the beginning of the current line, which may turn out blank
+    private char firstBlank;
+
+    /**
+     * Reads the maze from the reader without closing it.
+     *
+     * @throws IllegalArgumentException if the maze is not formatted properly.
+     */
+    Maze parse(Reader reader) throws IOException, IllegalArgumentException {
+        char[] buffer = new char[BUFFER_SIZE];
+        boolean afterCarriageReturn = false;
+        int read;
+        while ((read = reader.read(buffer)) > 0) {
+            for (int i = 0; i < read; i++) {
+                final char c = buffer[i];
+                if (c == '\n') {
+                    if (!afterCarriageReturn)
+                        endLine();
+                    afterCarriageReturn = false;
+                } else if (c == '\r') {
+                    endLine();
+                    afterCarriageReturn = true;
+                } else {
+                    afterCarriageReturn = false;
+                    accept(c);
+                }
+            }
+        }
+        endLine();
+        if (row == 0)
+            throw new IllegalArgumentException("File is not formatted properly");
+        if (row < height)
+            throw new IllegalArgumentException("Maze does not match the specified size");
+        return new Maze(height, width, startIndex, endIndex, walls, terrain);
+    }
+
+    private void accept(char c) {
+        if (!headerDone) {
+            header.append(c);
+            return;
+        }
+        if (column == 0 && Character.isWhitespace(c)) {
+            if (pendingBlanks++ == 0)
+                firstBlank = c;
+            return;
+        }
+        if (walls == null)
+            startGrid();
+        if (pendingBlanks > 0) {
+            pendingBlanks = 0;
+            put(firstBlank); // the line is not blank, so its leading whitespace is a part of the maze
+        }
+        put(c);
+    }
+
+    private void put(char c) {
+        if (column >= width)
+            throw new IllegalArgumentException("Maze does not match the specified size");
+        if (row < height) {
+            final int index = row * width + column;
+            switch (c) {
+                case 'S':
+                    if (startIndex != Maze.NO_CELL) throw new IllegalArgumentException("More than one start cell specified");
+                    startIndex = index;
+                    break;
+                case 'E':
+                    if (endIndex != Maze.NO_CELL) throw new IllegalArgumentException("More than one end cell specified");
+                    endIndex = index;
+                    break;
+                case '#':
+                    Maze.setBit(walls, index);
+                    break;
+                case '~':
+                    setTerrain(index, Cell.Type.MUD);
+                    break;
+                case '+':
+                    setTerrain(index, Cell.Type.DOOR);
+                    break;
+                case '.':
+                    break;
+                default:
+                    throw new IllegalArgumentException("Incorrect symbol at (" + column + ", " + row + "): " + c);
+            }
+        }
+        column++;
+    }
+
+    private void setTerrain(int index, Cell.Type type) {
+        if (terrain == null)
+            terrain = new byte[height * width];
+        terrain[index] = (byte) (type.getCost() - 1);
+    }
+
+    private void endLine() {
+        if (!headerDone) {
+            if (header.toString().isBlank())
+                header.setLength(0);
+            else
+                headerDone = true;
+            return;
+        }
+        if (column > 0) {
+            if (column != width)
+                throw new IllegalArgumentException("Maze does not match the specified size");
+            row++;
+        }
+        column = 0;
+        pendingBlanks = 0;
+    }
+
+    /**
+     * Validates the header once the first maze line is met and allocates the wall bitmap.
+     */
+    private void startGrid() {
+        final String size = header.toString();
+        if (!size.matches("\\d+x\\d+"))
+            throw new IllegalArgumentException("Maze size is not specified");
+        final int separator = size.indexOf('x');
+        final long parsedHeight = parseSize(size.substring(0, separator));
+        final long parsedWidth = parseSize(size.substring(separator + 1));
+        MazeLimits.check(parsedHeight, parsedWidth);
+        height = (int) parsedHeight;
+        width = (int) parsedWidth;
+        walls = new long[Maze.wordCount(height, width)];
+    }
+
+    /**
+     * Parses a maze side length, saturating numbers too large for a long so the size check rejects them.
+     */
+    private static long parseSize(String digits) {
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ru.spbstu.shortestmazepath.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates mazes with Wilson's algorithm, which picks every possible maze with equal probability.
+ * <p>
+ * Starting from a random room, the tree grows with loop-erased random walks: a walk goes from an unvisited room
+ * until it hits the tree, and then the path is carved. Every room remembers the direction it was last left in,
+ * so loops are erased simply by overwriting, and the carved path follows the remembered directions.
+ */
+class WilsonGenerator extends PerfectMazeGenerator {
+
+    @Override
+    void carve(SplittableRandom random) {
+        long[] next = newDirections(rooms);
+        carveRoom(random.nextInt(rooms));
+        for (int first = 0; first < rooms; first++) {
+            if (isCarved(first))
+                continue;
+            // The walk is the hot loop, so it tracks the coordinates itself instead of dividing the room index
+            int column = first % roomColumns;
+            int row = first / roomColumns;
+            int room = first;
+            do {
+                final int direction = random.nextInt(DIRECTIONS);
+                switch (direction) {
+                    case 0:
+                        if (row + 1 == roomRows)
+                            continue;
+                        row++;
+                        break;
+                    case 1:
+                        if (row == 0)
+                            continue;
+                        row--;
+                        break;
+                    case 2:
+                        if (column + 1 == roomColumns)
+                            continue;
+                        column++;
+                        break;
+                    default:
+                        if (column == 0)
+                            continue;
+                        column--;
+                }
+                setDirection(next, room, direction);
+                room = row * roomColumns + column;
+            } while (!isCarved(column, row));
+
+            room = first;
+            while (!isCarved(room)) {
+                final int direction = getDirection(next, room);
+                carveRoom(room);
+                carvePassage(room, direction);
+                room = neighbour(room, direction);
+            }
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package ru.spbstu.shortestmazepath;
 
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import ru.spbstu.shortestmazepath.model.Cell;
+import ru.spbstu.shortestmazepath.model.Maze;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class TestUtils {
 
@@ -11,4 +17,159 @@ public class TestUtils {
     public static void assertApproxEquals(double expected, double actual, double delta) {
         assertTrue(approxEquals(expected, actual, delta));
     }
+
+    /**
+     * Creates a maze with the start and the end in random cells and walls placed with the specified probability.
+     */
+    public static Maze randomMaze(Random random, int height, int width, double density) {
+        Cell[][] cells = new Cell[width][height];
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < height; j++) {
+                cells[i][j] = new Cell(i, j, random.nextDouble() < density ? Cell.Type.WALL : Cell.Type.PATH);
+            }
+        }
+        Cell start = new Cell(random.nextInt(width), random.nextInt(height), Cell.Type.START);
+        Cell end;
+        do {
+            end = new Cell(random.nextInt(width), random.nextInt(height), Cell.Type.END);
+        } while (end.x == start.x && end.y == start.y);
+        cells[start.x][start.y] = start;
+        cells[end.x][end.y] = end;
+        return new Maze(height, width, start, end, cells);
+    }
+
+    /**
+     * Creates a random maze like {@link #randomMaze}, then turns some of its open cells into mud and doors.
+     */
+    public static Maze randomTerrainMaze(Random random, int height, int width, double density, double terrainDensity) {
+        Maze maze = randomMaze(random, height, width, density);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (maze.getType(x, y) == Cell.Type.PATH && random.nextDouble() < terrainDensity)
+                    maze.setType(x, y, random.nextBoolean() ? Cell.Type.MUD : Cell.Type.DOOR);
+            }
+        }
+        return maze;
+    }
+
+    /**
+     * Finds the cost of the cheapest path with a plain Dijkstra's algorithm over the public API.
+     *
+     * @return the cost of the cheapest path or -1 if there is no path.
+     */
+    public static long cheapestPathCost(Maze maze) {
+        Map<Cell, Long> cost = new HashMap<>();
+        PriorityQueue<Map.Entry<Cell, Long>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+        cost.put(maze.getStartCell(), 0L);
+        queue.add(Map.entry(maze.getStartCell(), 0L));
+        while (!queue.isEmpty()) {
+            Map.Entry<Cell, Long> current = queue.poll();
+            if (current.getValue() > cost.get(current.getKey()))
+                continue;
+            if (current.getKey().equals(maze.getEndCell()))
+                return current.getValue();
+            for (Cell neighbour : maze.getNeighbours(current.getKey())) {
+                final long score = current.getValue() + neighbour.type.getCost();
+                if (score < cost.getOrDefault(neighbour, Long.MAX_VALUE)) {
+                    cost.put(neighbour, score);
+                    queue.add(Map.entry(neighbour, score));
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the sum of the costs of all the moves along the path.
+     */
+    public static long pathCost(List<Cell> path) {
+        long cost = 0;
+        for (int i = 1; i < path.size(); i++)
+            cost += path.get(i).type.getCost();
+        return cost;
+    }
+
+    /**
+     * Finds the number of cells in the shortest path with a plain breadth-first search over the public API.
+     *
+     * @return the number of cells in the shortest path or -1 if there is no path.
+     */
+    public static int shortestPathLength(Maze maze) {
+        Map<Cell, Integer> distance = new HashMap<>();
+        Deque<Cell> queue = new ArrayDeque<>();
+        distance.put(maze.getStartCell(), 1);
+        queue.add(maze.getStartCell());
+        while (!queue.isEmpty()) {
+            Cell current = queue.poll();
+            if (current.equals(maze.getEndCell()))
+                return distance.get(current);
+            for (Cell neighbour : maze.getNeighbours(current)) {
+                if (!distance.containsKey(neighbour)) {
+                    distance.put(neighbour, distance.get(current) + 1);
+                    queue.add(neighbour);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Solves random mazes with up to 40% of walls and checks the paths against {@link #shortestPathLength}.
+     *
+     * @see #assertMatchesOracle(long, int, int, double, double, boolean, Function)
+     */
+    public static void assertMatchesOracle(long seed, int attempts, int maxSize, Function<Maze, List<Cell>> solver) {
+        assertMatchesOracle(seed, attempts, maxSize, 0.4, 0, true, solver);
+    }
+
+    /**
+     * Solves random mazes generated from the seed and checks every answer against the oracle: the solver must
+     * throw {@link IllegalArgumentException} when there is no path, and otherwise find a valid path as cheap as
+     * the one of {@link #cheapestPathCost}, which is the shortest one without terrain. A solver that is not
+     * optimal may find a more expensive path. The seed is reported with every failure.
+     *
+     * @param maxSize           the mazes are up to this many cells high and one more wide.
+     * @param maxDensity        the greatest share of walls in a maze.
+     * @param maxTerrainDensity the greatest share of the open cells turned into mud and doors.
+     */
+    public static void assertMatchesOracle(long seed, int attempts, int maxSize, double maxDensity,
+                                           double maxTerrainDensity, boolean optimal,
+                                           Function<Maze, List<Cell>> solver) {
+        Random random = new Random(seed);
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            final String message = "seed " + seed + ", attempt " + attempt;
+            final int height = random.nextInt(maxSize) + 1;
+            final int width = random.nextInt(maxSize) + 2;
+            final double density = random.nextDouble() * maxDensity;
+            Maze maze = (maxTerrainDensity > 0)
+                    ? randomTerrainMaze(random, height, width, density, random.nextDouble() * maxTerrainDensity)
+                    : randomMaze(random, height, width, density);
+            final long expected = cheapestPathCost(maze);
+            if (expected < 0) {
+                assertThrows(IllegalArgumentException.class, () -> solver.apply(maze), message);
+                continue;
+            }
+            List<Cell> path = solver.apply(maze);
+            if (optimal)
+                assertEquals(expected, pathCost(path), message);
+            else
+                assertTrue(pathCost(path) >= expected, message);
+            assertValidPath(maze, path);
+        }
+    }
+
+    /**
+     * Checks the path goes from the start to the end of the maze through adjacent non-wall cells.
+     */
+    public static void assertValidPath(Maze maze, List<Cell> path) {
+        assertEquals(maze.getStartCell(), path.get(0));
+        assertEquals(maze.getEndCell(), path.get(path.size() - 1));
+        for (int i = 1; i < path.size(); i++) {
+            Cell previous = path.get(i - 1);
+            Cell current = path.get(i);
+            assertEquals(maze.getCell(current.x, current.y), current);
+            assertEquals(1, Math.abs(previous.x - current.x) + Math.abs(previous.y - current.y));
+            assertNotEquals(Cell.Type.WALL, current.type);
+        }
+    }
 }
@@ -0,0 +1,55 @@
+package ru.spbstu.shortestmazepath.cli;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchSolverTests {
+
+    private static List<String> run(int expectedCode, String... args) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        assertEquals(expectedCode, new BatchSolver().run(args, new PrintStream(out), new PrintStream(err)));
+        return Arrays.asList(out.toString().split(System.lineSeparator()));
+    }
+
+    @Test
+    public void csvTest() {
+        List<String> lines = run(0, "--threads", "2", "examples");
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).startsWith("file,status"));
+        assertTrue(lines.stream().anyMatch(line -> line.contains("sample1.maze,solved,16,16,39,")));
+        assertTrue(lines.stream().anyMatch(line -> line.contains("sample2.maze,solved,14,14,53,")));
+    }
+
+    @Test
+    public void jsonTest() {
+        List<String> lines = run(0, "--format", "json", "--algorithm", "a_star", "examples/sample*.maze");
+        assertEquals(3, lines.size());
+        assertTrue(lines.stream().allMatch(line -> line.startsWith("{\"file\":") && line.contains("\"status\":\"solved\"")));
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"pathLength\":38")));
+    }
+
+    @Test
+    public void metricsTest() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        assertEquals(0, new BatchSolver().run(new String[]{"--metrics", "--algorithm", "bfs", "examples/sample1.maze"},
+                new PrintStream(out), new PrintStream(err)));
+        assertTrue(out.toString().startsWith("file,status,width,height,path_length,expanded_nodes,generated_nodes,peak_open_set,"));
+        assertTrue(err.toString().contains("Expanded nodes: count "));
+    }
+
+    @Test
+    public void wrongArgumentsTest() {
+        run(2);
+        run(2, "--format", "xml", "examples");
+        run(2, "no-such-directory");
+    }
+}
@@ -4,8 +4,14 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.spbstu.shortestmazepath.TestUtils.randomTerrainMaze;
 
 public class MazeManagerTests {
 
@@ -20,4 +26,141 @@ public class MazeManagerTests {
             tempFile.delete();
         }
     }
+
+    @Test
+    public void sizeLimitsTest() throws IOException {
+        Random random = new Random();
+        Maze large = Maze.random(300, 500, random);
+        File tempFile = new File("temp.maze");
+        try {
+            MazeManager.save(large, tempFile);
+            assertEquals(large, MazeManager.load(tempFile));
+
+            MazeLimits.setSizeLimits(3, 100);
+            assertThrows(IllegalArgumentException.class, () -> MazeManager.load(tempFile));
+            assertThrows(IllegalArgumentException.class, () -> Maze.random(300, 500, random));
+        } finally {
+            MazeLimits.setSizeLimits(1, 65536);
+            tempFile.delete();
+        }
+        assertThrows(IllegalArgumentException.class, () -> MazeLimits.check(65536, 65536));
+    }
+
+    private static String loadError(String content) throws IOException {
+        File tempFile = new File("temp.maze");
+        try {
+            Files.writeString(tempFile.toPath(), content);
+            return assertThrows(IllegalArgumentException.class, () -> MazeManager.load(tempFile)).getMessage();
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    @Test
+    public void loadFormatTest() throws IOException {
+        File tempFile = new File("temp.maze");
+        try {
+            Files.writeString(tempFile.toPath(), "\n3x4\r\nS..#\n\n  \n.#.E\r\n....\n\n");
+            Maze maze = MazeManager.load(tempFile);
+            assertEquals(3, maze.getHeight());
+            assertEquals(4, maze.getWidth());
+            assertEquals(new Cell(0, 0, Cell.Type.START), maze.getStartCell());
+            assertEquals(new Cell(3, 1, Cell.Type.END), maze.getEndCell());
+            assertTrue(maze.isWall(3, 0));
+            assertTrue(maze.isWall(1, 1));
+        } finally {
+            tempFile.delete();
+        }
+
+        assertEquals("File is not formatted properly", loadError("3x3\n\n"));
+        assertEquals("Maze size is not specified", loadError("3 by 3\n...\n...\n...\n"));
+        assertEquals("Maze does not match the specified size", loadError("3x3\n...\n....\n...\n"));
+        assertEquals("Maze does not match the specified size", loadError("3x3\n...\n...\n"));
+        assertEquals("Incorrect symbol at (1, 2): x", loadError("3x3\n...\n...\n.x.\n"));
+        assertEquals("More than one start cell specified", loadError("3x3\nS..\n...\n..S\n"));
+        assertTrue(loadError("0x3\n...\n").startsWith("Wrong maze size is specified"));
+    }
+
+    @Test
+    public void binaryFormatTest() throws IOException {
+        Random random = new Random();
+        File tempFile = new File("temp.mazeb");
+        try {
+            for (int i = 0; i < 100; i++) {
+                Maze m = Maze.random(random.nextInt(100) + 1, random.nextInt(100) + 2, random);
+                MazeManager.save(m, tempFile);
+                assertEquals(m.getWalls().length * 8L + 24, tempFile.length());
+                assertEquals(m, MazeManager.load(tempFile));
+            }
+            Files.write(tempFile.toPath(), Arrays.copyOf("MAZB".getBytes(), 30));
+            assertThrows(IllegalArgumentException.class, () -> MazeManager.load(tempFile));
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    @Test
+    public void compressedFormatTest() throws IOException {
+        Random random = new Random();
+        File tempFile = new File("temp.mazez");
+        try {
+            for (int i = 0; i < 100; i++) {
+                Maze m = Maze.random(random.nextInt(150) + 1, random.nextInt(150) + 2, random);
+                MazeManager.save(m, tempFile);
+                assertEquals(m, MazeManager.load(tempFile));
+            }
+            Maze sample = MazeManager.load(new File("examples/sample1.maze"));
+            MazeManager.save(sample, tempFile);
+            assertEquals(sample, MazeManager.load(tempFile));
+            assertTrue(tempFile.length() < new File("examples/sample1.maze").length());
+
+            Files.write(tempFile.toPath(), Arrays.copyOf(Files.readAllBytes(tempFile.toPath()), 40));
+            assertThrows(IllegalArgumentException.class, () -> MazeManager.load(tempFile));
+
+            BinaryMazeFormat.save(sample, tempFile);
+            assertEquals("Not a compressed maze file",
+                    assertThrows(IllegalArgumentException.class, () -> CompressedMazeFormat.load(tempFile)).getMessage());
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    @Test
+    public void terrainFormatsTest() throws IOException {
+        Random random = new Random();
+        for (MazeManager.Format format : MazeManager.Format.values()) {
+            File tempFile = new File("temp" + format.getExtension());
+            try {
+                for (int i = 0; i < 50; i++) {
+                    Maze m = randomTerrainMaze(random, random.nextInt(100) + 1, random.nextInt(100) + 2, 0.3, 0.3);
+                    MazeManager.save(m, tempFile);
+                    assertEquals(m, MazeManager.load(tempFile));
+                    if (format == MazeManager.Format.BINARY && m.hasTerrain())
+                        assertEquals(m.getWalls().length * 8L + 24 + m.getHeight() * m.getWidth(), tempFile.length());
+                }
+            } finally {
+                tempFile.delete();
+            }
+        }
+        assertEquals("Incorrect symbol at (1, 0): *", loadError("1x3\nS*E\n"));
+
+        File tempFile = new File("temp.mazeb");
+        try {
+            Files.writeString(tempFile.toPath(), "2x3\nS~.\n.+E\n");
+            Maze maze = MazeManager.load(tempFile);
+            assertEquals(Cell.Type.MUD, maze.getType(1, 0));
+            assertEquals(Cell.Type.DOOR, maze.getType(1, 1));
+
+            // Terrain on a wall is rejected
+            maze = new Maze(2, 2, 0, 3, new long[1]);
+            maze.setType(1, 0, Cell.Type.MUD);
+            MazeManager.save(maze, tempFile);
+            byte[] bytes = Files.readAllBytes(tempFile.toPath());
+            bytes[24] = 0b10; // the wall bit of the mud cell
+            Files.write(tempFile.toPath(), bytes);
+            assertThrows(IllegalArgumentException.class, () -> MazeManager.load(tempFile));
+        } finally {
+            tempFile.delete();
+        }
+    }
 }
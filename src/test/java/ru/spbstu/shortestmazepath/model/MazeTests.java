@@ -4,11 +4,19 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static ru.spbstu.shortestmazepath.TestUtils.assertApproxEquals;
+import static ru.spbstu.shortestmazepath.TestUtils.*;
 
 public class MazeTests {
 
@@ -47,6 +55,32 @@ public class MazeTests {
         }
     }
 
+    @Test
+    public void gridTest() {
+        Random random = new Random();
+        for (int attempt = 0; attempt < 100; attempt++) {
+            int width = random.nextInt(100) + 1;
+            int height = random.nextInt(100) + 1;
+            Cell[][] cells = new Cell[width][height];
+            for (int i = 0; i < width; i++) {
+                for (int j = 0; j < height; j++) {
+                    cells[i][j] = new Cell(i, j, random.nextBoolean() ? Cell.Type.WALL : Cell.Type.PATH);
+                }
+            }
+            Cell start = new Cell(0, 0, Cell.Type.START);
+            cells[0][0] = start;
+            Maze maze = new Maze(height, width, start, null, cells);
+            assertTrue(Arrays.deepEquals(cells, maze.getMazeGrid()));
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            assertEquals(cells[x][y], maze.getCell(x, y));
+            assertEquals(cells[x][y].type == Cell.Type.WALL, maze.isWall(x, y));
+            assertEquals(start, maze.getStartCell());
+            assertNull(maze.getEndCell());
+            assertThrows(IndexOutOfBoundsException.class, () -> maze.getType(width, 0));
+        }
+    }
+
     @Test
     public void heuristicsTest() {
         Maze maze = Maze.random();
@@ -101,4 +135,641 @@ public class MazeTests {
         Maze m3 = MazeManager.load(new File("examples/sample3.maze"));
         assertEquals(38, m3.solve().size());
     }
+
+    @Test
+    public void randomSolveTest() {
+        for (int attempt = 0; attempt < 500; attempt++) {
+            Maze maze = Maze.random();
+            int expected = shortestPathLength(maze);
+            if (expected < 0) {
+                assertThrows(IllegalArgumentException.class, maze::solve);
+            } else {
+                List<Cell> path = maze.solve();
+                assertEquals(expected, path.size());
+                assertValidPath(maze, path);
+            }
+        }
+    }
+
+    @Test
+    public void algorithmsTest() throws IOException {
+        for (Algorithm algorithm : Algorithm.values()) {
+            assertPathLength(algorithm, 39, MazeManager.load(new File("examples/sample1.maze")).solve(algorithm).size());
+            assertPathLength(algorithm, 53, MazeManager.load(new File("examples/sample2.maze")).solve(algorithm).size());
+            assertPathLength(algorithm, 38, MazeManager.load(new File("examples/sample3.maze")).solve(algorithm).size());
+            assertMatchesOracle(1, 300, 80, 0.5, 0, algorithm.isOptimal(), maze -> maze.solve(algorithm));
+        }
+    }
+
+    private static void assertPathLength(Algorithm algorithm, int shortest, int actual) {
+        if (algorithm.isOptimal())
+            assertEquals(shortest, actual, algorithm.name());
+        else
+            assertTrue(actual >= shortest, algorithm.name() + ": " + actual + " < " + shortest);
+    }
+
+    @Test
+    public void bucketAStarTest() {
+        // With ties broken towards the end point, an open maze is crossed without a single step aside
+        Maze open = new Maze(300, 200, 5 * 200 + 190, 290 * 200 + 3, new long[Maze.wordCount(300, 200)]);
+        SearchMonitor monitor = new SearchMonitor();
+        List<Cell> path = open.solve(Algorithm.BUCKET_A_STAR, monitor);
+        assertEquals(285 + 187 + 1, path.size());
+        assertEquals(path.size(), monitor.getExpandedNodes());
+
+        Random random = new Random();
+        SearchMonitor euclidean = new SearchMonitor();
+        SearchMonitor manhattan = new SearchMonitor();
+        for (int attempt = 0; attempt < 20; attempt++) {
+            Maze maze = randomMaze(random, 150, 150, 0.2);
+            if (shortestPathLength(maze) >= 0)
+                assertEquals(maze.solve(Algorithm.A_STAR, euclidean).size(), maze.solve(Algorithm.BUCKET_A_STAR, manhattan).size());
+        }
+        assertTrue(manhattan.getExpandedNodes() < euclidean.getExpandedNodes());
+    }
+
+    @Test
+    public void autoChoiceTest() {
+        Random random = new Random();
+        assertEquals(Algorithm.BFS, Algorithm.choose(new MazeStatistics(randomMaze(random, 16, 16, 0.1))));
+        Maze open = randomMaze(random, 200, 200, 0.05);
+        Maze dense = randomMaze(random, 200, 200, 0.4);
+        MazeStatistics openStatistics = new MazeStatistics(open);
+        MazeStatistics denseStatistics = new MazeStatistics(dense);
+        assertEquals(40000, openStatistics.getCellCount());
+        assertApproxEquals(0.05, openStatistics.getWallDensity(), 0.01);
+        if (openStatistics.getStartEndDistance() > 32) {
+            assertEquals(Algorithm.JUMP_POINT, Algorithm.choose(openStatistics));
+        }
+        if (denseStatistics.getStartEndDistance() > 32) {
+            assertEquals(Algorithm.BIDIRECTIONAL, Algorithm.choose(denseStatistics));
+        }
+        final int side = 1 << 13;
+        Maze huge = new Maze(side, side, 0, side * side - 1, new long[Maze.wordCount(side, side)]);
+        assertNotEquals(Algorithm.HIERARCHICAL, Algorithm.choose(new MazeStatistics(huge)));
+        for (Algorithm algorithm : Algorithm.values())
+            assertEquals(algorithm != Algorithm.HIERARCHICAL, algorithm.isOptimal());
+    }
+
+    @Test
+    public void setTypeTest() {
+        Maze maze = new Maze(3, 4, 0, 11, new long[1]);
+        maze.setType(1, 1, Cell.Type.WALL);
+        assertTrue(maze.isWall(1, 1));
+        maze.setType(2, 0, Cell.Type.START);
+        assertEquals(new Cell(2, 0, Cell.Type.START), maze.getStartCell());
+        assertEquals(Cell.Type.PATH, maze.getType(0, 0));
+        maze.setType(1, 1, Cell.Type.END);
+        assertFalse(maze.isWall(1, 1));
+        assertEquals(new Cell(1, 1, Cell.Type.END), maze.getEndCell());
+        maze.setType(1, 1, Cell.Type.PATH);
+        assertNull(maze.getEndCell());
+        assertThrows(IndexOutOfBoundsException.class, () -> maze.setType(4, 0, Cell.Type.WALL));
+    }
+
+    @Test
+    public void resizedTest() {
+        Random random = new Random();
+        for (int attempt = 0; attempt < 50; attempt++) {
+            Maze maze = randomMaze(random, random.nextInt(70) + 1, random.nextInt(70) + 2, random.nextDouble());
+            final int height = random.nextInt(70) + 1;
+            final int width = random.nextInt(70) + 1;
+            Maze resized = maze.resized(height, width);
+            assertEquals(height, resized.getHeight());
+            assertEquals(width, resized.getWidth());
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    final Cell.Type expected = (x < maze.getWidth() && y < maze.getHeight())
+                            ? maze.getType(x, y) : Cell.Type.PATH;
+                    assertEquals(expected, resized.getType(x, y));
+                }
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new Maze(3, 3).resized(0, 3));
+    }
+
+    @Test
+    public void connectivityTest() {
+        Random random = new Random();
+        for (int attempt = 0; attempt < 50; attempt++) {
+            final int height = random.nextInt(30) + 1;
+            final int width = random.nextInt(30) + 2;
+            Maze maze = randomMaze(random, height, width, random.nextDouble() * 0.6);
+            for (int edit = 0; edit < 200; edit++) {
+                assertEquals(shortestPathLength(maze) >= 0, maze.hasPath());
+                final int x = random.nextInt(width);
+                final int y = random.nextInt(height);
+                final Cell.Type type = maze.getType(x, y);
+                if (type == Cell.Type.WALL)
+                    maze.setType(x, y, Cell.Type.PATH);
+                else if (type == Cell.Type.PATH)
+                    maze.setType(x, y, Cell.Type.WALL);
+            }
+            if (!maze.hasPath())
+                assertThrows(IllegalArgumentException.class, () -> maze.solve(Algorithm.BFS));
+            assertEquals(!maze.hasPath(), maze.isKnownUnreachable());
+
+            // A search does not build the index, so a fresh copy knows nothing until asked
+            Maze copy = new Maze(height, width, maze.getStartCell(), maze.getEndCell(), maze.getMazeGrid());
+            if (shortestPathLength(copy) < 0)
+                assertThrows(IllegalArgumentException.class, () -> copy.solve(Algorithm.BFS));
+            assertFalse(copy.isKnownUnreachable());
+        }
+    }
+
+    @Test
+    public void fingerprintTest() {
+        Random random = new Random();
+        for (int attempt = 0; attempt < 50; attempt++) {
+            final int height = random.nextInt(30) + 1;
+            final int width = random.nextInt(30) + 2;
+            Maze maze = randomMaze(random, height, width, random.nextDouble() * 0.6);
+            Maze copy = new Maze(height, width, maze.getStartCell(), maze.getEndCell(), maze.getMazeGrid());
+            assertEquals(maze.getFingerprint(), copy.getFingerprint());
+            assertEquals(maze.hashCode(), copy.hashCode());
+            for (int edit = 0; edit < 20; edit++) {
+                final int x = random.nextInt(width);
+                final int y = random.nextInt(height);
+                if (maze.getType(x, y) == Cell.Type.PATH)
+                    maze.setType(x, y, Cell.Type.WALL);
+                else if (maze.getType(x, y) == Cell.Type.WALL)
+                    maze.setType(x, y, Cell.Type.PATH);
+            }
+            Maze rebuilt = new Maze(height, width, maze.getStartCell(), maze.getEndCell(), maze.getMazeGrid());
+            assertEquals(rebuilt.getFingerprint(), maze.getFingerprint());
+        }
+    }
+
+    @Test
+    public void solutionCacheTest() throws IOException {
+        SolutionCache cache = new SolutionCache(2);
+        SearchMonitor monitor = new SearchMonitor();
+        List<Cell> path = cache.solve(MazeManager.load(new File("examples/sample1.maze")), Algorithm.BFS, monitor);
+        final long expanded = monitor.getExpandedNodes();
+        assertTrue(expanded > 0);
+        assertSame(path, cache.solve(MazeManager.load(new File("examples/sample1.maze")), Algorithm.BFS, monitor));
+        assertEquals(expanded, monitor.getExpandedNodes());
+        assertThrows(UnsupportedOperationException.class, () -> path.set(0, null));
+
+        assertNotSame(path, cache.solve(MazeManager.load(new File("examples/sample1.maze")), Algorithm.A_STAR, monitor));
+        cache.solve(MazeManager.load(new File("examples/sample2.maze")), Algorithm.BFS, monitor);
+        assertEquals(2, cache.size());
+        assertNotSame(path, cache.solve(MazeManager.load(new File("examples/sample1.maze")), Algorithm.BFS, monitor));
+
+        Maze maze = MazeManager.load(new File("examples/sample3.maze"));
+        List<Cell> before = cache.solve(maze, Algorithm.BFS, monitor);
+        Cell middle = before.get(before.size() / 2);
+        maze.setType(middle.x, middle.y, Cell.Type.WALL);
+        if (maze.hasPath())
+            assertNotEquals(before, cache.solve(maze, Algorithm.BFS, monitor));
+        assertThrows(IllegalArgumentException.class, () -> new SolutionCache(0));
+    }
+
+    @Test
+    public void incrementalPlannerTest() {
+        Random random = new Random();
+        for (int attempt = 0; attempt < 50; attempt++) {
+            final int height = random.nextInt(40) + 1;
+            final int width = random.nextInt(40) + 2;
+            IncrementalPlanner planner = new IncrementalPlanner(randomMaze(random, height, width, random.nextDouble() * 0.5));
+            Maze maze = planner.getMaze();
+            for (int edit = 0; edit < 100; edit++) {
+                int expected = shortestPathLength(maze);
+                if (expected < 0) {
+                    assertThrows(IllegalArgumentException.class, planner::solve);
+                } else {
+                    List<Cell> path = planner.solve();
+                    assertEquals(expected, path.size());
+                    assertValidPath(maze, path);
+                }
+                final int x = random.nextInt(width);
+                final int y = random.nextInt(height);
+                final Cell.Type type = maze.getType(x, y);
+                if (edit % 25 == 24 && type != Cell.Type.END)
+                    planner.setType(x, y, Cell.Type.START);
+                else if (type == Cell.Type.WALL)
+                    planner.setType(x, y, Cell.Type.PATH);
+                else if (type == Cell.Type.PATH)
+                    planner.setType(x, y, Cell.Type.WALL);
+            }
+        }
+    }
+
+    @Test
+    public void incrementalPlannerCancellationTest() {
+        Maze maze = new Maze(300, 300, 0, 300 * 300 - 1, new long[Maze.wordCount(300, 300)]);
+        IncrementalPlanner planner = new IncrementalPlanner(maze);
+        assertFalse(planner.hasCompleteSearch());
+        SearchMonitor monitor = new SearchMonitor();
+        monitor.cancel();
+        assertThrows(CancellationException.class, () -> planner.solve(monitor));
+        assertFalse(planner.hasCompleteSearch());
+        assertEquals(599, planner.solve().size()); // the cancelled search is resumed
+        assertTrue(planner.hasCompleteSearch());
+        planner.setType(1, 0, Cell.Type.WALL);
+        assertTrue(planner.hasCompleteSearch());
+        planner.setType(1, 0, Cell.Type.START);
+        assertFalse(planner.hasCompleteSearch());
+        assertEquals(598, planner.solve().size());
+    }
+
+    @Test
+    public void distanceFieldTest() {
+        Random random = new Random();
+        for (int attempt = 0; attempt < 50; attempt++) {
+            final int height = random.nextInt(40) + 1;
+            final int width = random.nextInt(40) + 2;
+            Maze maze = randomMaze(random, height, width, random.nextDouble() * 0.5);
+            DistanceField field = maze.getDistanceField();
+            assertSame(field, maze.getDistanceField());
+            for (int query = 0; query < 20; query++) {
+                final int x = random.nextInt(width);
+                final int y = random.nextInt(height);
+                if (maze.getType(x, y) == Cell.Type.WALL) {
+                    assertEquals(-1, field.distanceFrom(x, y));
+                    continue;
+                }
+                Maze copy = new Maze(height, width, new Cell(x, y, Cell.Type.START), maze.getEndCell(), maze.getMazeGrid());
+                final int expected = shortestPathLength(copy);
+                if (expected < 0) {
+                    assertEquals(-1, field.distanceFrom(x, y));
+                    assertThrows(IllegalArgumentException.class, () -> field.pathFrom(x, y));
+                } else {
+                    assertEquals(expected - 1, field.distanceFrom(x, y));
+                    List<Cell> path = field.pathFrom(x, y);
+                    assertEquals(expected, path.size());
+                    assertEquals(maze.getCell(x, y), path.get(0));
+                    assertEquals(maze.getEndCell(), path.get(path.size() - 1));
+                    for (int i = 1; i < path.size(); i++) {
+                        assertEquals(1, path.get(i - 1).distanceTo(path.get(i)));
+                        assertNotEquals(Cell.Type.WALL, path.get(i).type);
+                    }
+                }
+            }
+            Cell end = maze.getEndCell();
+            maze.setType(end.x, end.y, Cell.Type.PATH);
+            assertFalse(field.isValid());
+            assertThrows(IllegalStateException.class, () -> field.distanceFrom(0, 0));
+            assertThrows(IllegalArgumentException.class, maze::getDistanceField);
+        }
+    }
+
+    @Test
+    public void terrainDistanceFieldTest() {
+        final long seed = 25;
+        Random random = new Random(seed);
+        for (int attempt = 0; attempt < 50; attempt++) {
+            final int height = random.nextInt(40) + 1;
+            final int width = random.nextInt(40) + 2;
+            Maze maze = randomTerrainMaze(random, height, width, random.nextDouble() * 0.4, random.nextDouble());
+            DistanceField field = maze.getDistanceField();
+            for (int query = 0; query < 20; query++) {
+                final String message = "seed " + seed + ", attempt " + attempt + ", query " + query;
+                final int x = random.nextInt(width);
+                final int y = random.nextInt(height);
+                if (maze.getType(x, y) != Cell.Type.PATH)
+                    continue;
+                Maze copy = new Maze(height, width, new Cell(x, y, Cell.Type.START), maze.getEndCell(), maze.getMazeGrid());
+                final long expected = cheapestPathCost(copy);
+                assertEquals(expected, field.distanceFrom(x, y), message);
+                if (expected >= 0) {
+                    List<Cell> path = field.pathFrom(x, y);
+                    assertEquals(expected, pathCost(path), message);
+                    assertEquals(maze.getCell(x, y), path.get(0), message);
+                    assertEquals(maze.getEndCell(), path.get(path.size() - 1), message);
+                    for (int i = 1; i < path.size(); i++) {
+                        assertEquals(1, path.get(i - 1).distanceTo(path.get(i)), message);
+                        assertNotEquals(Cell.Type.WALL, path.get(i).type, message);
+                    }
+                }
+            }
+            // Changing the cost of a cell outdates the field, even though no wall has changed
+            final int x = random.nextInt(width);
+            final int y = random.nextInt(height);
+            final Cell.Type type = maze.getType(x, y);
+            if (type == Cell.Type.PATH || type == Cell.Type.MUD || type == Cell.Type.DOOR) {
+                maze.setType(x, y, (type == Cell.Type.MUD) ? Cell.Type.DOOR : Cell.Type.MUD);
+                assertFalse(field.isValid());
+                assertNotSame(field, maze.getDistanceField());
+            }
+        }
+    }
+
+    @Test
+    public void hierarchicalPlannerTest() {
+        Random random = new Random();
+        for (int attempt = 0; attempt < 50; attempt++) {
+            final int height = random.nextInt(60) + 1;
+            final int width = random.nextInt(60) + 2;
+            Maze maze = randomMaze(random, height, width, random.nextDouble() * 0.5);
+            HierarchicalPlanner planner = new HierarchicalPlanner(maze, random.nextInt(15) + 2);
+            for (int edit = 0; edit < 30; edit++) {
+                int expected = shortestPathLength(maze);
+                if (expected < 0) {
+                    assertThrows(IllegalArgumentException.class, planner::solve);
+                } else {
+                    List<Cell> path = planner.solve();
+                    assertTrue(path.size() >= expected);
+                    assertValidPath(maze, path);
+                    assertEquals(path, planner.solve()); // the reused search state gives the same answer
+                }
+                final int x = random.nextInt(width);
+                final int y = random.nextInt(height);
+                if (maze.getType(x, y) == Cell.Type.WALL)
+                    planner.setType(x, y, Cell.Type.PATH);
+                else if (maze.getType(x, y) == Cell.Type.PATH)
+                    planner.setType(x, y, Cell.Type.WALL);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalPlanner(Maze.random(), 1));
+    }
+
+    @Test
+    public void hierarchicalSolverTest() {
+        final long seed = 16;
+        Random random = new Random(seed);
+        Maze maze = randomMaze(random, 40, 60, 0.3);
+        HierarchicalPlanner planner = maze.getHierarchicalPlanner();
+        for (int edit = 0; edit < 300; edit++) {
+            final String message = "seed " + seed + ", edit " + edit;
+            final int expected = shortestPathLength(maze);
+            if (expected < 0) {
+                assertThrows(IllegalArgumentException.class, () -> maze.solve(Algorithm.HIERARCHICAL), message);
+            } else {
+                List<Cell> path = maze.solve(Algorithm.HIERARCHICAL);
+                assertTrue(path.size() >= expected, message);
+                assertValidPath(maze, path);
+                // The planner repaired by the maze keeps the same graph as one built from scratch
+                assertEquals(new HierarchicalPlanner(maze).solve(), path, message);
+            }
+            final int x = random.nextInt(60);
+            final int y = random.nextInt(40);
+            final Cell.Type type = maze.getType(x, y);
+            if (edit % 50 == 49 && type == Cell.Type.PATH)
+                maze.setType(x, y, Cell.Type.START);
+            else if (type == Cell.Type.WALL)
+                maze.setType(x, y, Cell.Type.PATH);
+            else if (type == Cell.Type.PATH)
+                maze.setType(x, y, Cell.Type.WALL);
+            assertSame(planner, maze.getHierarchicalPlanner());
+        }
+        assertFalse(Algorithm.HIERARCHICAL.isOptimal());
+        assertTrue(Algorithm.AUTO.isOptimal());
+    }
+
+    @Test
+    public void parallelBfsTest() {
+        assertMatchesOracle(17, 30, 300, new ParallelBfsSolver(0)::solve);
+    }
+
+    @Test
+    public void cancellationTest() {
+        Maze maze = new Maze(200, 200, 0, 200 * 200 - 1, new long[Maze.wordCount(200, 200)]);
+        for (Algorithm algorithm : List.of(Algorithm.BFS, Algorithm.A_STAR, Algorithm.BIDIRECTIONAL)) {
+            SearchMonitor monitor = new SearchMonitor();
+            monitor.cancel();
+            assertTrue(monitor.isCancelled());
+            assertThrows(CancellationException.class, () -> maze.solve(algorithm, monitor));
+        }
+        SearchMonitor monitor = new SearchMonitor();
+        maze.solve(Algorithm.BFS, monitor);
+        assertTrue(monitor.getProgress() > 0);
+        assertTrue(monitor.getProgress() <= monitor.getExpandedNodes());
+    }
+
+    @Test
+    public void generatorsTest() {
+        Random random = new Random(21);
+        for (Generator generator : Generator.values()) {
+            for (int attempt = 0; attempt < 30; attempt++) {
+                final int height = random.nextInt(60) + 1;
+                final int width = random.nextInt(60) + 3;
+                final long seed = random.nextLong();
+                final String message = generator + " " + height + "x" + width + ", seed " + seed;
+                Maze maze = generator.generate(height, width, seed);
+                assertEquals(maze, generator.generate(height, width, seed), message);
+                assertEquals(new Cell(0, 0, Cell.Type.START), maze.getStartCell(), message);
+                assertEquals(new Cell((width - 1) / 2 * 2, (height - 1) / 2 * 2, Cell.Type.END), maze.getEndCell(),
+                        message);
+
+                // A spanning tree of the rooms: all of them are connected with one passage less than rooms
+                final int rooms = (height + 1) / 2 * ((width + 1) / 2);
+                int open = 0;
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        if (!maze.isWall(x, y))
+                            open++;
+                        if (x % 2 == 0 && y % 2 == 0)
+                            assertFalse(maze.isWall(x, y), message);
+                        if (x % 2 == 1 && y % 2 == 1)
+                            assertTrue(maze.isWall(x, y), message);
+                    }
+                }
+                assertEquals(2 * rooms - 1, open, message);
+                assertEquals(open, reachableCells(maze), message);
+            }
+            assertNotEquals(generator.generate(31, 31, 1), generator.generate(31, 31, 2));
+            assertThrows(IllegalArgumentException.class, () -> generator.generate(2, 2, 0));
+            assertThrows(IllegalArgumentException.class, () -> generator.generate(0, 10, 0));
+        }
+    }
+
+    @Test
+    public void densityGeneratorTest() throws Exception {
+        Random random = new Random(22);
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool several = new ForkJoinPool(4);
+        try {
+            for (int attempt = 0; attempt < 30; attempt++) {
+                final int height = random.nextInt(200) + 1;
+                final int width = random.nextInt(200) + 2;
+                final double density = random.nextDouble();
+                final long seed = random.nextLong();
+                final String message = height + "x" + width + ", density " + density + ", seed " + seed;
+                MazeGenerator generator = new DensityGenerator(density, attempt % 2 == 0, 1);
+                Maze maze = single.submit(() -> generator.generate(height, width, seed)).get();
+                assertEquals(maze, several.submit(() -> generator.generate(height, width, seed)).get(), message);
+                assertEquals(maze, maze.resized(height, width), message); // no walls past the last cell
+                assertNotNull(maze.getStartCell(), message);
+                assertNotNull(maze.getEndCell(), message);
+                if (attempt % 2 == 0)
+                    assertTrue(shortestPathLength(maze) > 0, message);
+            }
+        } finally {
+            single.shutdown();
+            several.shutdown();
+        }
+
+        Maze maze = new DensityGenerator(0.3, false).generate(1000, 1000, 1);
+        assertApproxEquals(0.3, new MazeStatistics(maze).getWallDensity(), 0.01);
+        assertThrows(IllegalArgumentException.class, () -> new DensityGenerator(1.5, false));
+        assertThrows(IllegalArgumentException.class, () -> new DensityGenerator(0.5, false).generate(1, 1, 0));
+    }
+
+    @Test
+    public void solverStatsTest() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        for (Algorithm algorithm : Algorithm.values()) {
+            assertMatchesOracle(23, 50, 60, 0.4, 0, algorithm.isOptimal(), maze -> {
+                SearchMonitor monitor = new SearchMonitor(metrics);
+                final long solves = metrics.getSolveCount();
+                final long failures = metrics.getFailureCount();
+                try {
+                    List<Cell> path = maze.solve(algorithm, monitor);
+                    SolverStats stats = monitor.getStats();
+                    assertTrue(stats.isSolved());
+                    assertEquals(path.size(), stats.getPathLength());
+                    assertEquals(algorithm, stats.getAlgorithm());
+                    assertTrue(stats.getExpandedNodes() > 0);
+                    assertTrue(stats.getGeneratedNodes() > 0);
+                    assertTrue(stats.getPeakOpenSetSize() > 0);
+                    assertTrue(stats.getPeakOpenSetSize() <= stats.getGeneratedNodes());
+                    assertTrue(stats.getNanos() > 0);
+                    assertEquals(failures, metrics.getFailureCount());
+                    return path;
+                } catch (IllegalArgumentException e) {
+                    assertFalse(monitor.getStats().isSolved());
+                    assertEquals(failures + 1, metrics.getFailureCount());
+                    throw e;
+                } finally {
+                    assertEquals(solves + 1, metrics.getSolveCount());
+                }
+            });
+        }
+        assertEquals(metrics.getSolveCount(), metrics.getPathLength().getCount() + metrics.getFailureCount());
+        assertNull(new SearchMonitor().getStats());
+    }
+
+    @Test
+    public void histogramTest() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getQuantile(0.5));
+        for (long value : new long[]{0, 1, 2, 3, 4, 1000, -5})
+            histogram.record(value);
+        assertEquals(7, histogram.getCount());
+        assertEquals(1000, histogram.getMax());
+        assertApproxEquals(1010 / 7.0, histogram.getMean(), 1e-9);
+        assertArrayEquals(new long[]{2, 1, 2, 1}, Arrays.copyOf(histogram.getBuckets(), 4));
+        assertEquals(1, histogram.getBuckets()[10]);
+        assertEquals(3, histogram.getQuantile(0.5));
+        assertEquals(1000, histogram.getQuantile(1));
+        assertEquals(0, histogram.getQuantile(0));
+    }
+
+    @Test
+    public void terrainTest() {
+        Maze maze = new Maze(3, 4, 0, 11, new long[1]);
+        final long fingerprint = maze.getFingerprint();
+        assertFalse(maze.hasTerrain());
+        maze.setType(1, 1, Cell.Type.MUD);
+        maze.setType(2, 1, Cell.Type.DOOR);
+        assertTrue(maze.hasTerrain());
+        assertEquals(Cell.Type.MUD, maze.getType(1, 1));
+        assertEquals(Cell.Type.DOOR, maze.getType(2, 1));
+        assertFalse(maze.isWall(1, 1));
+        assertTrue(maze.toString().contains("\n* . ~ + . *\n"));
+        assertEquals(new Maze(3, 4, null, null, maze.getMazeGrid()).getFingerprint(), maze.getFingerprint());
+        assertEquals(maze, maze.resized(3, 4));
+        assertTrue(maze.resized(2, 2).hasTerrain());
+        assertFalse(maze.resized(2, 1).hasTerrain());
+
+        Maze walls = new Maze(3, 4, 0, 11, new long[1]);
+        walls.setType(1, 1, Cell.Type.WALL);
+        maze.setType(2, 1, Cell.Type.WALL);
+        assertNotEquals(walls.getFingerprint(), maze.getFingerprint());
+        maze.setType(2, 1, Cell.Type.PATH);
+        maze.setType(1, 1, Cell.Type.START);
+        assertFalse(maze.hasTerrain());
+        maze.setType(0, 0, Cell.Type.START);
+        assertEquals(fingerprint, maze.getFingerprint());
+        assertEquals(new Maze(3, 4, 0, 11, new long[1]), maze);
+
+        // Going through the mud costs as much as going around it, but going through a door costs more
+        Maze detour = new Maze(3, 5, 5, 9, new long[1]);
+        detour.setType(2, 1, Cell.Type.MUD);
+        assertEquals(Algorithm.TERRAIN, Algorithm.choose(new MazeStatistics(detour)));
+        assertEquals(6, pathCost(detour.solve()));
+        detour.setType(2, 1, Cell.Type.DOOR);
+        assertEquals(7, detour.solve().size());
+        assertEquals(5, detour.solve(Algorithm.BFS).size());
+    }
+
+    @Test
+    public void terrainSolverTest() {
+        assertMatchesOracle(25, 300, 60, 0.4, 1, true, maze -> maze.solve(Algorithm.TERRAIN));
+        assertMatchesOracle(25, 300, 60, 0.4, 1, true, Maze::solve);
+        assertMatchesOracle(25, 300, 60, 0.4, 1, true, maze -> new IncrementalPlanner(maze).solve());
+
+        final long seed = 25;
+        Random random = new Random(seed);
+        for (int attempt = 0; attempt < 300; attempt++) {
+            Maze maze = randomTerrainMaze(random, random.nextInt(60) + 1, random.nextInt(60) + 2,
+                    random.nextDouble() * 0.4, random.nextDouble());
+            IncrementalPlanner planner = new IncrementalPlanner(maze);
+            if (cheapestPathCost(maze) < 0)
+                continue;
+            planner.solve();
+
+            // The planner keeps the cheapest path while the terrain is being edited
+            for (int edit = 0; edit < 20; edit++) {
+                final int x = random.nextInt(maze.getWidth());
+                final int y = random.nextInt(maze.getHeight());
+                if (maze.getType(x, y) == Cell.Type.START || maze.getType(x, y) == Cell.Type.END)
+                    continue;
+                Cell.Type[] types = {Cell.Type.PATH, Cell.Type.WALL, Cell.Type.MUD, Cell.Type.DOOR};
+                planner.setType(x, y, types[random.nextInt(types.length)]);
+                final String message = "seed " + seed + ", attempt " + attempt + ", edit " + edit;
+                final long cost = cheapestPathCost(maze);
+                if (cost < 0) {
+                    assertThrows(IllegalArgumentException.class, planner::solve, message);
+                } else {
+                    List<Cell> path = planner.solve();
+                    assertEquals(cost, pathCost(path), message);
+                    assertValidPath(maze, path);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void radixHeapTest() {
+        Random random = new Random(25);
+        RadixHeap heap = new RadixHeap();
+        PriorityQueue<Integer> expected = new PriorityQueue<>();
+        int last = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (expected.isEmpty() || random.nextInt(3) != 0) {
+                final int priority = last + ((random.nextBoolean()) ? random.nextInt(8) : random.nextInt(1 << 20));
+                heap.add(priority % 1000, priority);
+                expected.add(priority);
+            } else {
+                last = expected.poll();
+                assertEquals(last % 1000, heap.poll());
+                assertEquals(last, heap.lastPriority());
+            }
+            assertEquals(expected.size(), heap.size());
+        }
+        while (!heap.isEmpty())
+            heap.poll();
+        heap.add(0, Integer.MAX_VALUE);
+        heap.add(1, Integer.MAX_VALUE - 1);
+        assertEquals(1, heap.poll());
+        assertEquals(0, heap.poll());
+        assertEquals(Integer.MAX_VALUE, heap.lastPriority());
+        assertThrows(IllegalArgumentException.class, () -> heap.add(0, heap.lastPriority() - 1));
+    }
+
+    private static int reachableCells(Maze maze) {
+        Set<Cell> visited = new HashSet<>();
+        Deque<Cell> queue = new ArrayDeque<>();
+        visited.add(maze.getStartCell());
+        queue.add(maze.getStartCell());
+        while (!queue.isEmpty()) {
+            for (Cell neighbour : maze.getNeighbours(queue.poll())) {
+                if (visited.add(neighbour))
+                    queue.add(neighbour);
+            }
+        }
+        return visited.size();
+    }
 }